@@ -0,0 +1,235 @@
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+// This class checks SICCompiler against SICSimulator. Each program is loaded
+// into two simulators, one of which is run through its compiled program, and
+// both are run in the same randomly sized slices of steps. After every slice
+// the stop reason, registers, instruction count, memory and device output
+// must be identical.
+//
+// Programs are generated at random (arithmetic, loads and stores, indexed
+// operands that fault, jumps and subroutines, device I/O and stores over the
+// program's own instructions), and any files given are checked as well.
+// Files are also timed in both engines.
+//
+// Usage: CompilerConformance [--programs N] [--seed S] [--steps N] [file.asm ...]
+public class CompilerConformance {
+    private static final String[] DATA_INSTRUCTIONS = {"ADD", "AND", "COMP", "DIV", "LDA", "LDCH", "LDL", "LDX",
+            "MUL", "OR", "RD", "STA", "STCH", "STL", "STSW", "STX", "SUB", "TD", "TIX", "WD"};
+    private static final String[] JUMP_INSTRUCTIONS = {"J", "JEQ", "JGT", "JLT", "JSUB"};
+    private static final int DATA_WORD_COUNT = 8;
+    private static final int BUFFER_LENGTH = 64;
+    private static final long TIMED_STEPS = 200_000_000L;
+
+    // Deterministic device: readiness follows the number of calls, reads count up,
+    // writes are recorded
+    private static final class RecordingDevice implements SICDevice {
+        private final StringBuilder output = new StringBuilder();
+        private int calls = 0;
+
+        @Override
+        public boolean isReady(){
+            return (calls++ % 3) != 0;
+        }
+
+        @Override
+        public int read(){
+            return calls++ & 0xFF;
+        }
+
+        @Override
+        public void write(int value){
+            calls++;
+            output.append((char) value);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int programCount = 2000;
+        long seed = 1;
+        long maximumSteps = 20000;
+        List<Path> files = new ArrayList<>();
+        for (int index = 0; index < args.length; index++){
+            switch (args[index]){
+                case "--programs":
+                    programCount = Integer.parseInt(args[++index]);
+                    break;
+                case "--seed":
+                    seed = Long.parseLong(args[++index]);
+                    break;
+                case "--steps":
+                    maximumSteps = Long.parseLong(args[++index]);
+                    break;
+                default:
+                    files.add(Path.of(args[index]));
+                    break;
+            }
+        }
+
+        Random random = new Random(seed);
+        int compiledCount = 0;
+        for (int program = 0; program < programCount; program++){
+            String source = generate(random);
+            AssemblerPass1 pass1 = AssemblerPass1.run(parse(source));
+            if (compare("program " + program, pass1, random, maximumSteps, source)){
+                compiledCount++;
+            }
+        }
+        System.out.println(programCount + " generated programs match the simulator (" + compiledCount + " compiled)");
+
+        for (Path file : files){
+            AssemblerPass1 pass1 = AssemblerPass1.run(ParseAssemblyCode.parse(file));
+            compare(file.toString(), pass1, random, maximumSteps, null);
+            time(file, pass1);
+        }
+    }
+
+    private static List<ParsedLineOfCode> parse(String source) throws SICParsingError {
+        List<ParsedLineOfCode> parsedCodeList = new ArrayList<>();
+        ParsedLineIterator lineIterator = new ParsedLineIterator(
+                AssemblySource.wrap(source.getBytes(StandardCharsets.US_ASCII), source.length()));
+        ParsedLineOfCode lineOfCode;
+        while ((lineOfCode = lineIterator.nextLineOfCode()) != null){
+            parsedCodeList.add(lineOfCode);
+        }
+        return parsedCodeList;
+    }
+
+    // Returns true if the program was compiled
+    private static boolean compare(String name, AssemblerPass1 pass1, Random random, long maximumSteps, String source)
+            throws SICParsingError {
+        SICSimulator simulator = new SICSimulator();
+        SICSimulator compiledSimulator = new SICSimulator();
+        simulator.load(pass1);
+        compiledSimulator.load(pass1);
+        RecordingDevice device = new RecordingDevice();
+        RecordingDevice compiledDevice = new RecordingDevice();
+        for (int deviceNumber = 0; deviceNumber < 256; deviceNumber++){
+            simulator.setDevice(deviceNumber, device);
+            compiledSimulator.setDevice(deviceNumber, compiledDevice);
+        }
+        SICCompiledProgram compiled = SICCompiler.compile(pass1, compiledSimulator);
+        boolean isCompiled = compiled.getIsCompiled();
+
+        long stepsRun = 0;
+        while (stepsRun < maximumSteps){
+            long steps = 1 + random.nextInt(random.nextBoolean() ? 8 : 5000);
+            SICSimulator.StopReason expected = simulator.run(steps);
+            SICSimulator.StopReason actual = compiled.run(steps);
+            String difference = difference(simulator, compiledSimulator, device, compiledDevice);
+            if (expected != actual || difference != null){
+                System.out.println("MISMATCH in " + name + " after " + simulator.getInstructionCount() + " steps: "
+                        + expected + " / " + actual + (difference == null ? "" : ", " + difference));
+                if (source != null){
+                    System.out.print(source);
+                }
+                System.exit(1);
+            }
+            if (expected != SICSimulator.StopReason.STEP_LIMIT){
+                break;
+            }
+            stepsRun += steps;
+        }
+        return isCompiled;
+    }
+
+    private static String difference(SICSimulator expected, SICSimulator actual, RecordingDevice expectedDevice,
+            RecordingDevice actualDevice){
+        int[] expectedRegisters = {expected.getA(), expected.getX(), expected.getL(), expected.getPC(), expected.getSW()};
+        int[] actualRegisters = {actual.getA(), actual.getX(), actual.getL(), actual.getPC(), actual.getSW()};
+        if (!Arrays.equals(expectedRegisters, actualRegisters)){
+            return "registers A X L PC SW " + Arrays.toString(expectedRegisters) + " / " + Arrays.toString(actualRegisters);
+        }
+        if (expected.getInstructionCount() != actual.getInstructionCount()){
+            return "instruction count " + expected.getInstructionCount() + " / " + actual.getInstructionCount();
+        }
+        if (expected.getFaultAddress() != actual.getFaultAddress()){
+            return "fault address " + expected.getFaultAddress() + " / " + actual.getFaultAddress();
+        }
+        int memoryDifference = Arrays.mismatch(expected.getMemory(), actual.getMemory());
+        if (memoryDifference >= 0){
+            return "memory at " + Integer.toHexString(memoryDifference);
+        }
+        if (!expectedDevice.output.toString().equals(actualDevice.output.toString())){
+            return "device output";
+        }
+        return null;
+    }
+
+    private static void time(Path file, AssemblerPass1 pass1) throws SICParsingError {
+        double[] rates = new double[2];
+        for (int engine = 0; engine < 2; engine++){
+            // The first runs warm up the JIT
+            for (int run = 0; run < 3; run++){
+                SICSimulator simulator = new SICSimulator();
+                simulator.load(pass1);
+                SICCompiledProgram compiled = SICCompiler.compile(pass1, simulator);
+                long startTime = System.nanoTime();
+                if (engine == 0){
+                    simulator.run(TIMED_STEPS);
+                }
+                else{
+                    compiled.run(TIMED_STEPS);
+                }
+                rates[engine] = simulator.getInstructionCount() * 1e3 / (System.nanoTime() - startTime);
+            }
+        }
+        System.out.printf("%s matches the simulator; %.1f Minstr/s simulated, %.1f Minstr/s compiled%n",
+                file, rates[0], rates[1]);
+    }
+
+    // A program of instructions that each have a label, followed by data
+    private static String generate(Random random){
+        StringBuilder builder = new StringBuilder();
+        int instructionCount = 2 + random.nextInt(60);
+        builder.append("PROG    START   1000\n");
+        builder.append("I0      LDX     D0\n");
+
+        for (int instruction = 1; instruction < instructionCount; instruction++){
+            String label = "I" + instruction;
+            int choice = random.nextInt(100);
+            String opcode;
+            String operand;
+            if (choice < 55){
+                opcode = DATA_INSTRUCTIONS[random.nextInt(DATA_INSTRUCTIONS.length)];
+                int kind = random.nextInt(10);
+                if (kind < 6){
+                    operand = "D" + random.nextInt(DATA_WORD_COUNT);
+                }
+                else if (kind < 9 || !opcode.startsWith("ST")){
+                    operand = "BUF,X";
+                }
+                else{
+                    // A store over the program itself
+                    operand = "I" + random.nextInt(instructionCount);
+                }
+            }
+            else if (choice < 70){
+                opcode = "TIX";
+                operand = "D" + random.nextInt(DATA_WORD_COUNT);
+            }
+            else if (choice < 95){
+                opcode = JUMP_INSTRUCTIONS[random.nextInt(JUMP_INSTRUCTIONS.length)];
+                operand = "I" + random.nextInt(instructionCount) + (random.nextInt(20) == 0 ? ",X" : "");
+            }
+            else{
+                opcode = "RSUB";
+                operand = "";
+            }
+            builder.append(String.format("%-8s%-8s%s%n", label, opcode, operand));
+        }
+
+        builder.append("HALT    J       HALT\n");
+        for (int word = 0; word < DATA_WORD_COUNT; word++){
+            int value = random.nextInt(4) == 0 ? random.nextInt(16777216) - 8388608 : random.nextInt(100);
+            builder.append(String.format("%-8s%-8s%d%n", "D" + word, "WORD", value));
+        }
+        builder.append("BUF     RESB    " + BUFFER_LENGTH + "\n");
+        builder.append("        END     I0\n");
+        return builder.toString();
+    }
+}
@@ -0,0 +1,200 @@
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+// This class benchmarks the parser on programs from SICProgramGenerator.
+// For every benchmark it reports throughput (ops/s, ns/op) and allocation
+// (bytes/op and MB/s), measured per thread with the HotSpot ThreadMXBean,
+// the same counter "-prof gc" reads in JMH.
+//
+// Benchmarks:
+//    parse          end-to-end parse of the whole generated program
+//    parseInvalid   error-accumulating parse of a program with invalid lines
+//    tokenize       lexing every line, without validation
+//    opcodeLookup   opcode table lookups straight from the line
+//    validate*      one ParsedLineOfCode validator per benchmark
+//
+// Usage: ParserBenchmark [--lines N] [--seed S] [--warmup N] [--iterations N]
+//                        [--time MS] [--filter SUBSTRING]
+public class ParserBenchmark {
+    private static volatile Object sink;
+    private static volatile long countSink;
+    private final AssemblySource validSource;
+    private final AssemblySource invalidSource;
+    private final int[] lineStarts;
+    private final int[] lineEnds;
+    private final List<String> names = new ArrayList<>();
+    private final List<Operation> operations = new ArrayList<>();
+
+    private ParserBenchmark(int lineCount, long seed){
+        byte[] valid = new SICProgramGenerator(seed, lineCount, 0).generate();
+        byte[] invalid = new SICProgramGenerator(seed, lineCount, 0.05).generate();
+        validSource = AssemblySource.wrap(valid, valid.length);
+        invalidSource = AssemblySource.wrap(invalid, invalid.length);
+
+        List<int[]> lines = new ArrayList<>();
+        AssemblySource source = AssemblySource.wrap(valid, valid.length);
+        while (source.nextLine()){
+            lines.add(new int[]{source.lineStart(), source.lineEnd()});
+        }
+        lineStarts = new int[lines.size()];
+        lineEnds = new int[lines.size()];
+        for (int index = 0; index < lines.size(); index++){
+            lineStarts[index] = lines.get(index)[0];
+            lineEnds[index] = lines.get(index)[1];
+        }
+    }
+
+    private interface Operation {
+        void run() throws Exception;
+    }
+
+    private void add(String name, Operation operation){
+        names.add(name);
+        operations.add(operation);
+    }
+
+    private void defineBenchmarks(){
+        add("parse", () -> sink = ParseAssemblyCode.collect(validSource.slice(0, validSource.length())));
+
+        add("parseInvalid", () -> {
+            ParseDiagnostics diagnostics = new ParseDiagnostics();
+            ParsedLineIterator lineIterator = new ParsedLineIterator(invalidSource.slice(0, invalidSource.length()), diagnostics);
+            while (lineIterator.nextLineOfCode() != null){
+                countSink++;
+            }
+            sink = diagnostics;
+        });
+
+        AssemblyLineLexer lexer = new AssemblyLineLexer();
+        SourceLine sourceLine = new SourceLine();
+        add("tokenize", () -> {
+            long tokens = 0;
+            for (int line = 0; line < lineStarts.length; line++){
+                sourceLine.set(validSource, lineStarts[line], lineEnds[line]);
+                tokens += lexer.tokenize(sourceLine);
+            }
+            countSink = tokens;
+        });
+
+        add("opcodeLookup", () -> {
+            long found = 0;
+            for (int line = 0; line < lineStarts.length; line++){
+                sourceLine.set(validSource, lineStarts[line], lineEnds[line]);
+                int tokenCount = lexer.tokenize(sourceLine);
+                for (int token = 0; token < tokenCount; token++){
+                    if (SICOpcode.lookup(sourceLine, lexer.getTokenStart(token), lexer.getTokenEnd(token)) != null){
+                        found++;
+                    }
+                }
+            }
+            countSink = found;
+        });
+
+        addValidator("validateLabel", null, new String[]{"FIRST", "CLOOP", "L1A2B", "low", "TOOLONGL"});
+        addValidator("validateSTARTOperand", "START", new String[]{"1000", "7FFF", "8000", "ZZ"});
+        addValidator("validateBYTEOperand", "BYTE", new String[]{"C'E OF'", "X'F1'", "X'F'", "C'OPEN"});
+        addValidator("validateWORDOperand", "WORD", new String[]{"3", "-2000", "9999999", "ABC"});
+        addValidator("validateRESBOperand", "RESB", new String[]{"4096", "1", "0", "ABC"});
+        addValidator("validateRESWOperand", "RESW", new String[]{"1", "10922", "20000", "ABC"});
+        addValidator("validateNonspecificOperand", "LDA", new String[]{"ZERO", "BUFFER,X", "lower", "A1234567"});
+    }
+
+    // A validator benchmark runs the setter that calls the validator on a mix
+    // of valid and invalid tokens. opcode is null for labels.
+    private void addValidator(String name, String opcode, String[] tokens){
+        ParsedLineOfCode lineOfCode = new ParsedLineOfCode();
+        add(name, () -> {
+            long valid = 0;
+            for (String token : tokens){
+                try {
+                    if (opcode == null){
+                        lineOfCode.setLabel(token);
+                    }
+                    else{
+                        lineOfCode.setOpcode(opcode);
+                        lineOfCode.setOperand(token);
+                    }
+                    valid++;
+                }
+
+                catch (SICParsingError _){
+                    // Invalid tokens are part of the workload
+                }
+            }
+            countSink = valid;
+        });
+    }
+
+    private static void measure(String name, Operation operation, int warmupIterations, int iterations, long iterationMillis)
+            throws Exception {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().threadId();
+
+        for (int iteration = 0; iteration < warmupIterations; iteration++){
+            runFor(operation, iterationMillis);
+        }
+
+        long totalOperations = 0;
+        long totalNanos = 0;
+        long allocatedBytes = threads.getThreadAllocatedBytes(threadId);
+        for (int iteration = 0; iteration < iterations; iteration++){
+            long startTime = System.nanoTime();
+            totalOperations += runFor(operation, iterationMillis);
+            totalNanos += System.nanoTime() - startTime;
+        }
+        allocatedBytes = threads.getThreadAllocatedBytes(threadId) - allocatedBytes;
+
+        double seconds = totalNanos / 1e9;
+        System.out.printf(Locale.ROOT, "%-28s %14.1f %14.1f %14.1f %10.1f%n", name,
+                totalOperations / seconds, totalNanos / (double) totalOperations,
+                allocatedBytes / (double) totalOperations, allocatedBytes / seconds / (1024 * 1024));
+    }
+
+    private static long runFor(Operation operation, long millis) throws Exception {
+        long deadline = System.nanoTime() + millis * 1_000_000;
+        long count = 0;
+        do {
+            operation.run();
+            count++;
+        } while (System.nanoTime() < deadline);
+        return count;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int lineCount = 10_000;
+        long seed = 1;
+        int warmupIterations = 3;
+        int iterations = 5;
+        long iterationMillis = 1000;
+        String filter = "";
+
+        for (int index = 0; index < args.length; index++){
+            switch (args[index]){
+                case "--lines" -> lineCount = Integer.parseInt(args[++index]);
+                case "--seed" -> seed = Long.parseLong(args[++index]);
+                case "--warmup" -> warmupIterations = Integer.parseInt(args[++index]);
+                case "--iterations" -> iterations = Integer.parseInt(args[++index]);
+                case "--time" -> iterationMillis = Long.parseLong(args[++index]);
+                case "--filter" -> filter = args[++index];
+                default -> {
+                    System.err.println("Unknown option: " + args[index]);
+                    System.exit(2);
+                }
+            }
+        }
+
+        ParserBenchmark benchmark = new ParserBenchmark(lineCount, seed);
+        benchmark.defineBenchmarks();
+
+        System.out.printf(Locale.ROOT, "lines=%d seed=%d warmup=%d iterations=%d time=%dms%n",
+                lineCount, seed, warmupIterations, iterations, iterationMillis);
+        System.out.printf(Locale.ROOT, "%-28s %14s %14s %14s %10s%n", "Benchmark", "ops/s", "ns/op", "B/op", "MB/s");
+        for (int index = 0; index < benchmark.names.size(); index++){
+            if (benchmark.names.get(index).contains(filter)){
+                measure(benchmark.names.get(index), benchmark.operations.get(index), warmupIterations, iterations, iterationMillis);
+            }
+        }
+    }
+}
@@ -0,0 +1,145 @@
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+// This class generates synthetic SIC assembly programs for benchmarking.
+// The same seed and settings always produce the same program.
+// Programs mix comments, labels, indexed (",X") operands, remarks, tabs and
+// spaces, BYTE C'...' strings containing spaces, BYTE X'...', WORD, RESW and RESB.
+// With an invalid rate above 0, that fraction of body lines is replaced with
+// one of the errors the parser reports (bad label, bad opcode, bad operand,
+// blank line).
+public class SICProgramGenerator {
+    private static final String[] INSTRUCTIONS = {"ADD", "AND", "COMP", "DIV", "J", "JEQ", "JGT", "JLT", "JSUB",
+            "LDA", "LDCH", "LDL", "LDX", "MUL", "OR", "RD", "STA", "STCH", "STL", "STSW", "STX", "SUB", "TD",
+            "TIX", "WD"};
+    private static final String[] REMARKS = {"", "", "", "LOAD VALUE", "LOOP UNTIL DONE", "SAVE RETURN ADDRESS"};
+    private static final String[] INVALID_LINES = {"low\tLDA\tZERO", "\tFOO\tZERO", "\tLDA\tlower",
+            "BAD\tWORD\tABC", "BAD\tBYTE\tX'F'", "BAD\tBYTE\tC'OPEN", "BAD\tRESW\t0", "", "TOOLONGL\tSTA\tZERO"};
+    private static final String CHARACTER_STRING_CHARACTERS = "ABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789 ";
+    private final Random random;
+    private final int lineCount;
+    private final double invalidRate;
+    private final int dataLabelCount;
+
+    public SICProgramGenerator(long seed, int lineCount, double invalidRate){
+        this.random = new Random(seed);
+        this.lineCount = lineCount;
+        this.invalidRate = invalidRate;
+        this.dataLabelCount = Math.max(1, lineCount / 10);
+    }
+
+    // This function returns the program as ASCII bytes.
+    // lineCount counts the body only; the START and END lines are added to it.
+    public byte[] generate(){
+        StringBuilder program = new StringBuilder(lineCount * 24);
+        program.append(". GENERATED SIC PROGRAM\n");
+        program.append("GEN\tSTART\t1000\n");
+
+        int codeLineCount = lineCount - dataLabelCount;
+        for (int line = 0; line < codeLineCount; line++){
+            if (random.nextDouble() < invalidRate){
+                program.append(INVALID_LINES[random.nextInt(INVALID_LINES.length)]).append('\n');
+                continue;
+            }
+            appendCodeLine(program, line);
+        }
+
+        for (int dataLabel = 0; dataLabel < dataLabelCount; dataLabel++){
+            appendDataLine(program, dataLabel);
+        }
+
+        program.append("\tEND\tGEN\n");
+        return program.toString().getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private void appendCodeLine(StringBuilder program, int line){
+        int kind = random.nextInt(20);
+
+        if (kind < 2){
+            program.append(random.nextBoolean() ? "." : "\t.").append("\tCOMMENT LINE ").append(line).append('\n');
+            return;
+        }
+
+        // Roughly one line in five has a label
+        if (kind < 6){
+            program.append(label('L', line));
+        }
+        program.append(random.nextBoolean() ? '\t' : ' ');
+
+        if (kind == 19){
+            program.append("RSUB");
+        }
+        else{
+            program.append(INSTRUCTIONS[random.nextInt(INSTRUCTIONS.length)]).append('\t')
+                    .append(label('D', random.nextInt(dataLabelCount)));
+            if (random.nextInt(6) == 0){
+                program.append(",X");
+            }
+        }
+
+        appendRemark(program);
+    }
+
+    private void appendDataLine(StringBuilder program, int dataLabel){
+        program.append(label('D', dataLabel)).append('\t');
+
+        switch (random.nextInt(5)){
+            case 0:
+                program.append("BYTE\tC'");
+                int length = 1 + random.nextInt(12);
+                for (int index = 0; index < length; index++){
+                    program.append(CHARACTER_STRING_CHARACTERS.charAt(random.nextInt(CHARACTER_STRING_CHARACTERS.length())));
+                }
+                program.append('\'');
+                break;
+            case 1:
+                program.append("BYTE\tX'");
+                int byteCount = 1 + random.nextInt(4);
+                for (int index = 0; index < byteCount; index++){
+                    program.append(String.format("%02X", random.nextInt(256)));
+                }
+                program.append('\'');
+                break;
+            case 2:
+                program.append("WORD\t").append(random.nextInt(2_000_000) - 1_000_000);
+                break;
+            case 3:
+                program.append("RESW\t").append(1 + random.nextInt(16));
+                break;
+            default:
+                program.append("RESB\t").append(1 + random.nextInt(64));
+        }
+
+        appendRemark(program);
+    }
+
+    private void appendRemark(StringBuilder program){
+        String remark = REMARKS[random.nextInt(REMARKS.length)];
+        if (!remark.isEmpty()){
+            program.append("\t\t").append(remark);
+        }
+        program.append('\n');
+    }
+
+    // Labels are a prefix letter and a base 36 number: at most 6 characters
+    // for up to 60 million labels of each kind.
+    private static String label(char prefix, int number){
+        return prefix + Integer.toString(number, 36).toUpperCase();
+    }
+
+    // Usage: SICProgramGenerator <output file> <lines> [seed] [invalid rate]
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2){
+            System.err.println("Usage: SICProgramGenerator <output file> <lines> [seed] [invalid rate]");
+            System.exit(2);
+        }
+
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 1;
+        double invalidRate = args.length > 3 ? Double.parseDouble(args[3]) : 0;
+        SICProgramGenerator generator = new SICProgramGenerator(seed, Integer.parseInt(args[1]), invalidRate);
+        Files.write(Path.of(args[0]), generator.generate());
+    }
+}
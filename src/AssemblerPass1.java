@@ -0,0 +1,171 @@
+import java.util.Arrays;
+import java.util.List;
+
+// This class is pass 1 of the SIC assembler.
+// It walks the parsed program once, assigning an address to every line with
+// the location counter (LOCCTR) and entering every label in the symbol table.
+// RULES:
+//    1.) LOCCTR starts at the START operand (hex).
+//    2.) Instructions and WORD advance LOCCTR by 3 bytes, RESW by 3 bytes per word,
+//        RESB by its operand, and BYTE by the length of its constant.
+//    3.) A label may only be defined once.
+//    4.) The program must fit in memory (addresses 0000-7FFF).
+public class AssemblerPass1 {
+    public static final int NO_ADDRESS = -1;
+    private static final int WORD_LENGTH = 3;
+    private static final int MEMORY_SIZE = 32768;
+    private final List<ParsedLineOfCode> parsedCodeList;
+    private final int[] addresses;
+    private final SymbolTable symbolTable;
+    private String programName;
+    private int startAddress;
+    private int programLength;
+    private String endOperand;
+    private ParsedLineOfCode endLineOfCode;
+
+    private AssemblerPass1(List<ParsedLineOfCode> parsedCodeList){
+        this.parsedCodeList = parsedCodeList;
+        this.addresses = new int[parsedCodeList.size()];
+        this.symbolTable = new SymbolTable(parsedCodeList.size() / 2);
+        Arrays.fill(addresses, NO_ADDRESS);
+    }
+
+    // This function runs pass 1 over the output of ParseAssemblyCode.parse
+    public static AssemblerPass1 run(List<ParsedLineOfCode> parsedCodeList) throws SICParsingError {
+        AssemblerPass1 pass1 = new AssemblerPass1(parsedCodeList);
+        pass1.assignAddresses();
+        return pass1;
+    }
+
+    private void assignAddresses() throws SICParsingError {
+        int locationCounter = 0;
+
+        for (int index = 0; index < parsedCodeList.size(); index++){
+            ParsedLineOfCode lineOfCode = parsedCodeList.get(index);
+            if (lineOfCode.getIsComment()){
+                continue;
+            }
+
+            SICOpcode opcode = lineOfCode.getSICOpcode();
+            if ((isNumericDirective(opcode) && lineOfCode.getOperandValue() == ParsedLineOfCode.NO_OPERAND_VALUE)
+                    || (opcode == SICOpcode.BYTE && lineOfCode.getOperand() == null)){
+                // The parser accepts "WORD", "BYTE" and the like without an operand
+                throw error(opcode + " requires an operand.", lineOfCode);
+            }
+            if (opcode == SICOpcode.START){
+                locationCounter = lineOfCode.getOperandValue();
+                startAddress = locationCounter;
+                programName = lineOfCode.getLabel() == null ? "" : lineOfCode.getLabel();
+            }
+
+            addresses[index] = locationCounter;
+
+            if (lineOfCode.getLabel() != null){
+                if (!symbolTable.put(SymbolTable.pack(lineOfCode.getLabel()), locationCounter)){
+                    throw error("Duplicate label " + lineOfCode.getLabel() + ".", lineOfCode);
+                }
+            }
+
+            if (opcode == SICOpcode.END){
+                endOperand = getEndOperand(lineOfCode);
+                endLineOfCode = lineOfCode;
+                break;
+            }
+
+            locationCounter += getLength(lineOfCode);
+            if (locationCounter > MEMORY_SIZE){
+                throw error("Program does not fit in memory (0000-7FFF).", lineOfCode);
+            }
+        }
+
+        programLength = locationCounter - startAddress;
+    }
+
+    // Directives whose operand is a number (see ParsedLineOfCode.getOperandValue)
+    private static boolean isNumericDirective(SICOpcode opcode){
+        return opcode == SICOpcode.START || opcode == SICOpcode.WORD || opcode == SICOpcode.RESB
+                || opcode == SICOpcode.RESW;
+    }
+
+    // This function returns the number of bytes the line occupies in memory
+    public static int getLength(ParsedLineOfCode lineOfCode){
+        SICOpcode opcode = lineOfCode.getSICOpcode();
+
+        switch (opcode){
+            case START:
+            case END:
+                return 0;
+            case WORD:
+                return WORD_LENGTH;
+            case RESW:
+                return WORD_LENGTH * lineOfCode.getOperandValue();
+            case RESB:
+                return lineOfCode.getOperandValue();
+            case BYTE:
+                return getByteConstantLength(lineOfCode.getOperand());
+            default:
+                return opcode.getLength();
+        }
+    }
+
+    // C'...' takes one byte per character and X'...' one byte per two hex digits.
+    // A BYTE without an operand is rejected before its length is needed.
+    private static int getByteConstantLength(String operand){
+        int characterCount = operand.length() - 3;
+        return operand.charAt(0) == 'X' ? characterCount / 2 : characterCount;
+    }
+
+    // The parser doesn't keep the operand of END (the first instruction to run),
+    // so it is read from the line itself. Returns null if there is none.
+    static String getEndOperand(ParsedLineOfCode lineOfCode){
+        String unparsedLineOfCode = lineOfCode.getUnparsedLineOfCode();
+        AssemblyLineLexer lexer = new AssemblyLineLexer();
+        int operandToken = lineOfCode.getLabel() == null ? 1 : 2;
+
+        if (lexer.tokenize(unparsedLineOfCode) > operandToken){
+            return lexer.getToken(unparsedLineOfCode, operandToken);
+        }
+        return null;
+    }
+
+    // An assembler error for a line, shared with pass 2
+    static SICParsingError error(String message, ParsedLineOfCode lineOfCode){
+        return new SICParsingError("Assembler Error: " + message + "\n"
+                + "LINE " + lineOfCode.getLineNumber() + ": " + lineOfCode.getUnparsedLineOfCode());
+    }
+
+    public List<ParsedLineOfCode> getParsedCodeList(){
+        return parsedCodeList;
+    }
+
+    // The address of the line at the given index of the parsed code list,
+    // or NO_ADDRESS for comments and lines after END.
+    public int getAddress(int index){
+        return addresses[index];
+    }
+
+    public SymbolTable getSymbolTable(){
+        return symbolTable;
+    }
+
+    public String getProgramName(){
+        return programName;
+    }
+
+    public int getStartAddress(){
+        return startAddress;
+    }
+
+    public int getProgramLength(){
+        return programLength;
+    }
+
+    public String getEndOperand(){
+        return endOperand;
+    }
+
+    // The END line, or null if the program has none
+    public ParsedLineOfCode getEndLineOfCode(){
+        return endLineOfCode;
+    }
+}
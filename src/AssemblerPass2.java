@@ -0,0 +1,253 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+// This class is pass 2 of the SIC assembler.
+// It turns the output of pass 1 into a SIC object program:
+//    H record: program name, start address, program length
+//    T records: up to 30 bytes of object code each, starting a new record
+//               whenever RESB/RESW leave a gap
+//    E record: the address of the first instruction to execute
+// The records are written as ASCII hex straight into a reusable direct buffer,
+// which is flushed to the channel whenever it fills, so a program of any size
+// streams out without building Strings.
+public class AssemblerPass2 {
+    public static final int MAXIMUM_TEXT_RECORD_LENGTH = 30;
+    public static final int MAXIMUM_OBJECT_CODE_LENGTH = 32;
+    private static final int INDEXED_ADDRESSING_BIT = 0x8000;
+    private static final int WORD_MASK = 0xFFFFFF;
+    private static final int PROGRAM_NAME_LENGTH = 6;
+    private static final int OUTPUT_BUFFER_SIZE = 64 * 1024;
+    // Longest record: "T" + address(6) + length(2) + 30 bytes as hex + newline
+    private static final int MAXIMUM_RECORD_LENGTH = 1 + 6 + 2 + MAXIMUM_TEXT_RECORD_LENGTH * 2 + 1;
+    private static final byte[] HEX_CHARACTERS = {'0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'A', 'B', 'C', 'D', 'E', 'F'};
+    private static final ThreadLocal<ByteBuffer> OUTPUT_BUFFER =
+            ThreadLocal.withInitial(() -> ByteBuffer.allocateDirect(OUTPUT_BUFFER_SIZE));
+    private final WritableByteChannel channel;
+    private final ByteBuffer output;
+    private final byte[] textRecord = new byte[MAXIMUM_TEXT_RECORD_LENGTH];
+    private final byte[] objectCode = new byte[MAXIMUM_OBJECT_CODE_LENGTH];
+    private int textRecordStart;
+    private int textRecordLength = 0;
+
+    private AssemblerPass2(WritableByteChannel channel){
+        this.channel = channel;
+        this.output = OUTPUT_BUFFER.get();
+        this.output.clear();
+    }
+
+    public static void write(AssemblerPass1 pass1, Path objectProgramFile) throws SICParsingError, IOException {
+        try (FileChannel channel = FileChannel.open(objectProgramFile, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)){
+            write(pass1, channel);
+        }
+    }
+
+    // This function writes the object program for pass1 to the channel.
+    // The channel is not closed.
+    public static void write(AssemblerPass1 pass1, WritableByteChannel channel) throws SICParsingError, IOException {
+        new AssemblerPass2(channel).writeProgram(pass1);
+    }
+
+    private void writeProgram(AssemblerPass1 pass1) throws SICParsingError, IOException {
+        List<ParsedLineOfCode> parsedCodeList = pass1.getParsedCodeList();
+        SymbolTable symbolTable = pass1.getSymbolTable();
+
+        writeHeaderRecord(pass1.getProgramName(), pass1.getStartAddress(), pass1.getProgramLength());
+
+        for (int index = 0; index < parsedCodeList.size(); index++){
+            ParsedLineOfCode lineOfCode = parsedCodeList.get(index);
+            int address = pass1.getAddress(index);
+            if (address == AssemblerPass1.NO_ADDRESS){
+                continue;
+            }
+
+            SICOpcode opcode = lineOfCode.getSICOpcode();
+            if (opcode == SICOpcode.RESB || opcode == SICOpcode.RESW){
+                // Reserved memory has no object code, so the next code starts a new record
+                writeTextRecord();
+                continue;
+            }
+
+            int length = encode(lineOfCode, symbolTable, objectCode);
+            if (length > 0){
+                addToTextRecord(address, length);
+            }
+        }
+
+        writeTextRecord();
+        writeEndRecord(getFirstInstructionAddress(pass1));
+        flush();
+    }
+
+    // This function writes the object code for one line into destination
+    // and returns the number of bytes written (0 for lines with no object code).
+    // destination must have room for MAXIMUM_OBJECT_CODE_LENGTH bytes.
+    public static int encode(ParsedLineOfCode lineOfCode, SymbolTable symbolTable, byte[] destination) throws SICParsingError {
+        SICOpcode opcode = lineOfCode.getSICOpcode();
+        if (opcode == null || lineOfCode.getIsComment()){
+            return 0;
+        }
+
+        switch (opcode){
+            case START:
+            case END:
+            case RESB:
+            case RESW:
+                return 0;
+            case WORD:
+                int word = lineOfCode.getOperandValue() & WORD_MASK;
+                destination[0] = (byte) (word >>> 16);
+                destination[1] = (byte) (word >>> 8);
+                destination[2] = (byte) word;
+                return 3;
+            case BYTE:
+                if (lineOfCode.getOperand() == null){
+                    // Pass 1 rejects this too; encode may be called without it
+                    throw AssemblerPass1.error("BYTE requires an operand.", lineOfCode);
+                }
+                return encodeByteConstant(lineOfCode.getOperand(), destination);
+            default:
+                int targetAddress = 0;
+                if (lineOfCode.getOperand() != null){
+                    targetAddress = resolveOperand(lineOfCode, symbolTable);
+                }
+                if (lineOfCode.getIsIndexed()){
+                    targetAddress |= INDEXED_ADDRESSING_BIT;
+                }
+                destination[0] = (byte) opcode.getMachineCode();
+                destination[1] = (byte) (targetAddress >>> 8);
+                destination[2] = (byte) targetAddress;
+                return 3;
+        }
+    }
+
+    // Instruction operands are labels (see validateNonspecificOperand)
+    private static int resolveOperand(ParsedLineOfCode lineOfCode, SymbolTable symbolTable) throws SICParsingError {
+        String operand = lineOfCode.getOperand();
+
+        int address = symbolTable.get(operand);
+        if (address == SymbolTable.NOT_FOUND){
+            throw new SICParsingError("Assembler Error: Undefined symbol " + operand + ".\n"
+                    + "LINE " + lineOfCode.getLineNumber() + ": " + lineOfCode.getUnparsedLineOfCode());
+        }
+        return address;
+    }
+
+    // C'...' is one byte per character; X'...' is one byte per pair of hex digits
+    private static int encodeByteConstant(String operand, byte[] destination){
+        int end = operand.length() - 1;
+        int length = 0;
+
+        if (operand.charAt(0) == 'X'){
+            for (int index = 2; index < end; index += 2){
+                destination[length++] = (byte) ((SICCharacters.hexValue(operand.charAt(index)) << 4)
+                        | SICCharacters.hexValue(operand.charAt(index + 1)));
+            }
+        }
+        else{
+            for (int index = 2; index < end; index++){
+                destination[length++] = (byte) operand.charAt(index);
+            }
+        }
+        return length;
+    }
+
+    // The END operand, or the start of the program if END has none.
+    // The parser doesn't validate the END operand, so it is checked to be a label
+    // before it is packed for the symbol table lookup.
+    static int getFirstInstructionAddress(AssemblerPass1 pass1) throws SICParsingError {
+        String endOperand = pass1.getEndOperand();
+        if (endOperand == null){
+            return pass1.getStartAddress();
+        }
+
+        if (!SICCharacters.isLabel(endOperand, 0, endOperand.length())){
+            throw AssemblerPass1.error("Invalid END operand " + endOperand + ".", pass1.getEndLineOfCode());
+        }
+        int address = pass1.getSymbolTable().get(endOperand);
+        if (address == SymbolTable.NOT_FOUND){
+            throw AssemblerPass1.error("Undefined symbol " + endOperand + " in END.", pass1.getEndLineOfCode());
+        }
+        return address;
+    }
+
+    // Adds object code to the current text record. Code that doesn't fit starts
+    // a new record, so an instruction is never split across records; only a
+    // BYTE constant longer than a whole record is split.
+    private void addToTextRecord(int address, int length) throws IOException {
+        if (textRecordLength > 0 && (textRecordStart + textRecordLength != address
+                || textRecordLength + length > MAXIMUM_TEXT_RECORD_LENGTH)){
+            writeTextRecord();
+        }
+
+        for (int index = 0; index < length; index++){
+            if (textRecordLength == MAXIMUM_TEXT_RECORD_LENGTH){
+                writeTextRecord();
+            }
+            if (textRecordLength == 0){
+                textRecordStart = address + index;
+            }
+            textRecord[textRecordLength++] = objectCode[index];
+        }
+    }
+
+    private void writeHeaderRecord(String programName, int startAddress, int programLength) throws IOException {
+        reserve(1 + PROGRAM_NAME_LENGTH + 12 + 1);
+        output.put((byte) 'H');
+        for (int index = 0; index < PROGRAM_NAME_LENGTH; index++){
+            output.put((byte) (index < programName.length() ? programName.charAt(index) : ' '));
+        }
+        putHex(startAddress, 6);
+        putHex(programLength, 6);
+        output.put((byte) '\n');
+    }
+
+    private void writeTextRecord() throws IOException {
+        if (textRecordLength == 0){
+            return;
+        }
+
+        reserve(MAXIMUM_RECORD_LENGTH);
+        output.put((byte) 'T');
+        putHex(textRecordStart, 6);
+        putHex(textRecordLength, 2);
+        for (int index = 0; index < textRecordLength; index++){
+            putHex(textRecord[index] & 0xFF, 2);
+        }
+        output.put((byte) '\n');
+        textRecordLength = 0;
+    }
+
+    private void writeEndRecord(int firstInstructionAddress) throws IOException {
+        reserve(1 + 6 + 1);
+        output.put((byte) 'E');
+        putHex(firstInstructionAddress, 6);
+        output.put((byte) '\n');
+    }
+
+    private void putHex(int value, int digits){
+        for (int shift = (digits - 1) * 4; shift >= 0; shift -= 4){
+            output.put(HEX_CHARACTERS[(value >>> shift) & 0xF]);
+        }
+    }
+
+    // Makes room for a record, flushing the buffer to the channel if needed
+    private void reserve(int length) throws IOException {
+        if (output.remaining() < length){
+            flush();
+        }
+    }
+
+    private void flush() throws IOException {
+        output.flip();
+        while (output.hasRemaining()){
+            channel.write(output);
+        }
+        output.clear();
+    }
+}
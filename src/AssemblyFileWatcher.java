@@ -0,0 +1,125 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashMap;
+import java.util.Map;
+
+// This class watches a directory of assembly code files and re-parses a file
+// every time it is saved. Each file keeps an IncrementalParser, so a save only
+// costs as much as the lines that changed. The listener is called on the
+// watching thread with the diagnostics for the whole file.
+public class AssemblyFileWatcher implements Closeable {
+    private static final String ASSEMBLY_FILE_EXTENSION = ".asm";
+    private final Path directory;
+    private final Listener listener;
+    private final WatchService watchService;
+    private final Map<Path, IncrementalParser> parsers = new HashMap<>();
+
+    public interface Listener {
+        void parsed(Path assemblyCodeFile, IncrementalParser parser, long elapsedNanos);
+    }
+
+    public AssemblyFileWatcher(Path directory, Listener listener) throws IOException {
+        this.directory = directory;
+        this.listener = listener;
+        this.watchService = directory.getFileSystem().newWatchService();
+        directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+    }
+
+    // This function parses every assembly code file already in the directory,
+    // then re-parses files as they change until the watcher is closed.
+    public void run() throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + ASSEMBLY_FILE_EXTENSION)){
+            for (Path assemblyCodeFile : files){
+                reparse(assemblyCodeFile);
+            }
+        }
+
+        try {
+            while (true){
+                WatchKey key = watchService.take();
+                for (WatchEvent<?> event : key.pollEvents()){
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW){
+                        // Events were lost, so bring every known file up to date
+                        for (Path assemblyCodeFile : parsers.keySet().toArray(new Path[0])){
+                            reparse(assemblyCodeFile);
+                        }
+                        continue;
+                    }
+
+                    Path assemblyCodeFile = directory.resolve((Path) event.context());
+                    if (!assemblyCodeFile.toString().endsWith(ASSEMBLY_FILE_EXTENSION)){
+                        continue;
+                    }
+                    if (event.kind() == StandardWatchEventKinds.ENTRY_DELETE){
+                        parsers.remove(assemblyCodeFile);
+                    }
+                    else{
+                        reparse(assemblyCodeFile);
+                    }
+                }
+                key.reset();
+            }
+        }
+
+        catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+        }
+
+        catch (ClosedWatchServiceException _){
+            // close() was called
+        }
+    }
+
+    private void reparse(Path assemblyCodeFile){
+        byte[] contents;
+        try {
+            contents = Files.readAllBytes(assemblyCodeFile);
+        }
+
+        catch (IOException _){
+            // The file was deleted or is still being written; a later event will bring it back
+            return;
+        }
+
+        long startTime = System.nanoTime();
+        IncrementalParser parser = parsers.get(assemblyCodeFile);
+        boolean isNewFile = parser == null;
+        if (isNewFile){
+            parser = new IncrementalParser();
+            parsers.put(assemblyCodeFile, parser);
+        }
+        int previousLineCount = parser.getLineCount();
+
+        try {
+            parser.update(contents, contents.length);
+        }
+
+        catch (SICParsingError e){
+            // Only thrown when parsing without diagnostics
+            throw new IllegalStateException(e);
+        }
+
+        // Saving often raises more than one event; only report real changes
+        if (isNewFile || parser.getReparsedLineCount() > 0 || parser.getLineCount() != previousLineCount){
+            listener.parsed(assemblyCodeFile, parser, System.nanoTime() - startTime);
+        }
+    }
+
+    public IncrementalParser getParser(Path assemblyCodeFile){
+        return parsers.get(assemblyCodeFile);
+    }
+
+    @Override
+    public void close() throws IOException {
+        watchService.close();
+    }
+}
@@ -0,0 +1,91 @@
+// This class splits one line of assembly code into tokens in a single pass.
+// The start and end offset of each token is recorded in a reusable int array,
+// so tokenizing a line creates no objects.
+// RULES:
+//    1.) Tokens are separated by whitespace (any character up to and including ' ').
+//    2.) A token starting with "C'" is a BYTE character string. It runs to the
+//        closing quotation mark and may contain spaces.
+//    3.) Only the first three tokens (label, opcode, operand) are recorded.
+//        Anything after them is a remark and is not scanned.
+public class AssemblyLineLexer {
+    public static final int MAXIMUM_TOKENS = 3;
+    private static final int STATE_WHITESPACE = 0;
+    private static final int STATE_TOKEN = 1;
+    private static final int STATE_CHARACTER_STRING = 2;
+    private final int[] tokenOffsets = new int[MAXIMUM_TOKENS * 2];
+    private int tokenCount = 0;
+
+    // This function tokenizes the line and returns the number of tokens found
+    public int tokenize(CharSequence lineOfCode){
+        int length = lineOfCode.length();
+        int state = STATE_WHITESPACE;
+        tokenCount = 0;
+
+        for (int index = 0; index < length; index++){
+            char character = lineOfCode.charAt(index);
+
+            switch (state){
+                case STATE_WHITESPACE:
+                    if (character > ' '){
+                        tokenOffsets[tokenCount * 2] = index;
+                        if (character == 'C' && index + 1 < length && lineOfCode.charAt(index + 1) == '\''){
+                            state = STATE_CHARACTER_STRING;
+                            index++;
+                        }
+                        else{
+                            state = STATE_TOKEN;
+                        }
+                    }
+                    break;
+                case STATE_TOKEN:
+                    if (character <= ' '){
+                        if (endToken(index)){
+                            return tokenCount;
+                        }
+                        state = STATE_WHITESPACE;
+                    }
+                    break;
+                case STATE_CHARACTER_STRING:
+                    if (character == '\''){
+                        if (endToken(index + 1)){
+                            return tokenCount;
+                        }
+                        state = STATE_WHITESPACE;
+                    }
+                    break;
+            }
+        }
+
+        // An unterminated character string runs to the end of the line
+        if (state != STATE_WHITESPACE){
+            endToken(length);
+        }
+
+        return tokenCount;
+    }
+
+    // Records the end of the current token and
+    // returns true once no more tokens are needed.
+    private boolean endToken(int end){
+        tokenOffsets[tokenCount * 2 + 1] = end;
+        tokenCount++;
+        return tokenCount == MAXIMUM_TOKENS;
+    }
+
+    public int getTokenCount(){
+        return tokenCount;
+    }
+
+    public int getTokenStart(int token){
+        return tokenOffsets[token * 2];
+    }
+
+    public int getTokenEnd(int token){
+        return tokenOffsets[token * 2 + 1];
+    }
+
+    // Convenience for callers that need the token text
+    public String getToken(CharSequence lineOfCode, int token){
+        return lineOfCode.subSequence(getTokenStart(token), getTokenEnd(token)).toString();
+    }
+}
@@ -0,0 +1,180 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+// This class holds the raw bytes of an assembly code file and finds
+// line boundaries directly in those bytes.
+// Regular files are memory-mapped. Channels that can't be mapped are read
+// through a reusable direct buffer instead. Either way no String is created
+// for a line until text() is called for it.
+public class AssemblySource {
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+    private static final ThreadLocal<ByteBuffer> READ_BUFFER =
+            ThreadLocal.withInitial(() -> ByteBuffer.allocateDirect(READ_BUFFER_SIZE));
+    private final ByteBuffer bytes;
+    private final int limit;
+    private int position = 0;
+    private int lineStart = 0;
+    private int lineEnd = 0;
+
+    private AssemblySource(ByteBuffer bytes){
+        this(bytes, 0, bytes.limit());
+    }
+
+    private AssemblySource(ByteBuffer bytes, int position, int limit){
+        this.bytes = bytes;
+        this.position = position;
+        this.limit = limit;
+    }
+
+    public static AssemblySource open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)){
+            return open(channel);
+        }
+    }
+
+    // The mapping stays valid after the channel is closed,
+    // so parsed lines can keep pointing into it.
+    public static AssemblySource open(FileChannel channel) throws IOException {
+        long startTime = ParseMetrics.start();
+        AssemblySource source = map(channel);
+        ParseMetrics.stop(ParseMetrics.Timer.READ, startTime);
+        ParseMetrics.add(ParseMetrics.Counter.BYTES, source.length());
+        return source;
+    }
+
+    private static AssemblySource map(FileChannel channel) throws IOException {
+        long size = channel.size();
+
+        if (size > Integer.MAX_VALUE){
+            throw new IOException("Assembly Code file is too large to parse.");
+        }
+
+        // Special files (pipes, /proc entries) report a size of 0
+        // and have to be read until end of stream.
+        if (size > 0){
+            try{
+                return new AssemblySource(channel.map(FileChannel.MapMode.READ_ONLY, channel.position(), size - channel.position()));
+            }
+
+            catch (IOException | UnsupportedOperationException _){
+                // Fall through and read the channel instead
+            }
+        }
+
+        return new AssemblySource(read(channel, (int) size));
+    }
+
+    // This function wraps file contents that are already in memory
+    public static AssemblySource wrap(byte[] contents, int length){
+        return new AssemblySource(ByteBuffer.wrap(contents, 0, length));
+    }
+
+    private static ByteBuffer read(FileChannel channel, int sizeHint) throws IOException {
+        ByteBuffer readBuffer = READ_BUFFER.get();
+        byte[] contents = new byte[Math.max(sizeHint, READ_BUFFER_SIZE)];
+        int length = 0;
+
+        readBuffer.clear();
+        while (channel.read(readBuffer) != -1){
+            readBuffer.flip();
+            int count = readBuffer.remaining();
+            if (length + count > contents.length){
+                contents = Arrays.copyOf(contents, Math.max(contents.length * 2, length + count));
+            }
+            readBuffer.get(contents, length, count);
+            length += count;
+            readBuffer.clear();
+        }
+
+        return ByteBuffer.wrap(contents, 0, length);
+    }
+
+    // This function moves to the next line in the file.
+    // Line terminators (\n, \r\n, \r) are not part of the line.
+    // Like Scanner.hasNextLine(), a terminator at the very end of the file
+    // does not start another, empty line.
+    public boolean nextLine(){
+        if (position >= limit){
+            return false;
+        }
+
+        lineStart = position;
+        int index = position;
+        while (index < limit){
+            byte character = bytes.get(index);
+            if (character == '\n' || character == '\r'){
+                break;
+            }
+            index++;
+        }
+        lineEnd = index;
+
+        if (index < limit && bytes.get(index) == '\r'){
+            index++;
+        }
+        if (index < limit && bytes.get(index) == '\n'){
+            index++;
+        }
+        position = index;
+
+        return true;
+    }
+
+    // This function returns a source over the bytes between start and end.
+    // The slice shares the bytes but keeps its own line position, so slices
+    // of the same file can be read by different threads.
+    public AssemblySource slice(int start, int end){
+        return new AssemblySource(bytes, start, end);
+    }
+
+    // This function returns the offset just past the first line terminator
+    // at or after the given offset, or the end of the source if there is none.
+    // Splitting the source at these offsets never cuts a line (or a \r\n) in two.
+    public int nextLineBoundary(int offset){
+        int index = offset;
+        while (index < limit){
+            byte character = bytes.get(index);
+            if (character == '\n'){
+                return index + 1;
+            }
+            if (character == '\r'){
+                return (index + 1 < limit && bytes.get(index + 1) == '\n') ? index + 2 : index + 1;
+            }
+            index++;
+        }
+        return limit;
+    }
+
+    public int lineStart(){
+        return lineStart;
+    }
+
+    public int lineEnd(){
+        return lineEnd;
+    }
+
+    public char charAt(int index){
+        return (char) (bytes.get(index) & 0xFF);
+    }
+
+    public int length(){
+        return limit;
+    }
+
+    // Read-only view of the bytes between two offsets, for hashing or copying them
+    ByteBuffer bytes(int start, int end){
+        return bytes.slice(start, end - start).asReadOnlyBuffer();
+    }
+
+    // This function returns the text between two offsets as a String
+    public String text(int start, int end){
+        byte[] text = new byte[end - start];
+        bytes.get(start, text);
+        return new String(text, StandardCharsets.UTF_8);
+    }
+}
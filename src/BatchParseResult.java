@@ -0,0 +1,43 @@
+import java.nio.file.Path;
+
+// This class holds the outcome of parsing one file in a batch.
+// A file passes when errorMessage is null.
+public class BatchParseResult {
+    private final Path path;
+    private final int lineCount;
+    private final long byteCount;
+    private final long elapsedNanos;
+    private final String errorMessage;
+
+    public BatchParseResult(Path path, int lineCount, long byteCount, long elapsedNanos, String errorMessage){
+        this.path = path;
+        this.lineCount = lineCount;
+        this.byteCount = byteCount;
+        this.elapsedNanos = elapsedNanos;
+        this.errorMessage = errorMessage;
+    }
+
+    public Path getPath(){
+        return path;
+    }
+
+    public int getLineCount(){
+        return lineCount;
+    }
+
+    public long getByteCount(){
+        return byteCount;
+    }
+
+    public long getElapsedNanos(){
+        return elapsedNanos;
+    }
+
+    public String getErrorMessage(){
+        return errorMessage;
+    }
+
+    public boolean isPassed(){
+        return errorMessage == null;
+    }
+}
@@ -0,0 +1,90 @@
+import java.util.List;
+
+// This class collects the per-file results of a batch parse
+// along with pass/fail counts and throughput.
+public class BatchParseSummary {
+    private static final double NANOS_PER_SECOND = 1_000_000_000.0;
+    private final List<BatchParseResult> results;
+    private final long elapsedNanos;
+    private final int threadCount;
+    private int passedCount = 0;
+    private int failedCount = 0;
+    private long lineCount = 0;
+    private long byteCount = 0;
+
+    public BatchParseSummary(List<BatchParseResult> results, long elapsedNanos, int threadCount){
+        this.results = results;
+        this.elapsedNanos = elapsedNanos;
+        this.threadCount = threadCount;
+
+        for (BatchParseResult result : results){
+            if (result.isPassed()){
+                passedCount++;
+            }
+            else{
+                failedCount++;
+            }
+            lineCount += result.getLineCount();
+            byteCount += result.getByteCount();
+        }
+    }
+
+    public List<BatchParseResult> getResults(){
+        return results;
+    }
+
+    public int getFileCount(){
+        return results.size();
+    }
+
+    public int getPassedCount(){
+        return passedCount;
+    }
+
+    public int getFailedCount(){
+        return failedCount;
+    }
+
+    public long getLineCount(){
+        return lineCount;
+    }
+
+    public long getByteCount(){
+        return byteCount;
+    }
+
+    public long getElapsedNanos(){
+        return elapsedNanos;
+    }
+
+    public int getThreadCount(){
+        return threadCount;
+    }
+
+    public double getFilesPerSecond(){
+        return perSecond(results.size());
+    }
+
+    public double getLinesPerSecond(){
+        return perSecond(lineCount);
+    }
+
+    public double getBytesPerSecond(){
+        return perSecond(byteCount);
+    }
+
+    private double perSecond(long count){
+        return elapsedNanos == 0 ? 0 : count * NANOS_PER_SECOND / elapsedNanos;
+    }
+
+    @Override
+    public String toString(){
+        return String.format("Files: %d, Passed: %d, Failed: %d%n"
+                        + "Lines: %d, Bytes: %d, Threads: %d%n"
+                        + "Elapsed: %.3f s, %.1f files/s, %.0f lines/s, %.2f MB/s",
+                getFileCount(), passedCount, failedCount,
+                lineCount, byteCount, threadCount,
+                elapsedNanos / NANOS_PER_SECOND, getFilesPerSecond(), getLinesPerSecond(),
+                getBytesPerSecond() / (1024 * 1024));
+    }
+}
@@ -0,0 +1,149 @@
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+// This class parses every assembly code file under a directory, or every
+// file matching a glob, concurrently on a work-stealing pool.
+// ParseAssemblyCode keeps no shared state, so each file is an independent task.
+// A parse error fails only its own file; results are returned in path order.
+public class BatchParser {
+    private static final String ASSEMBLY_CODE_EXTENSION = ".asm";
+    private static final String GLOB_CHARACTERS = "*?[{";
+
+    public static BatchParseSummary parseAll(String directoryOrGlob) throws IOException {
+        return parseAll(directoryOrGlob, Runtime.getRuntime().availableProcessors());
+    }
+
+    public static BatchParseSummary parseAll(String directoryOrGlob, int threadCount) throws IOException {
+        return parseAll(findFiles(directoryOrGlob), threadCount);
+    }
+
+    public static BatchParseSummary parseAll(List<Path> assemblyCodeFiles, int threadCount) throws IOException {
+        return parseAll(assemblyCodeFiles, threadCount, null);
+    }
+
+    // Same as above, answering unchanged files from the cache when it is not null
+    public static BatchParseSummary parseAll(List<Path> assemblyCodeFiles, int threadCount, ParseCache cache) throws IOException {
+        return parseAll(assemblyCodeFiles, threadCount, cache, null);
+    }
+
+    // Same as above; lines parsed before, in any file, are restored from lineCache
+    // when it is not null. One ParsedLineCache is shared by all the threads.
+    public static BatchParseSummary parseAll(List<Path> assemblyCodeFiles, int threadCount, ParseCache cache,
+                                             ParsedLineCache lineCache) throws IOException {
+        ForkJoinPool pool = new ForkJoinPool(threadCount);
+        long startTime = System.nanoTime();
+
+        try {
+            List<Future<BatchParseResult>> futures = new ArrayList<>(assemblyCodeFiles.size());
+            for (Path assemblyCodeFile : assemblyCodeFiles){
+                futures.add(pool.submit(() -> parseFile(assemblyCodeFile, cache, lineCache)));
+            }
+
+            List<BatchParseResult> results = new ArrayList<>(futures.size());
+            for (Future<BatchParseResult> future : futures){
+                results.add(future.get());
+            }
+
+            return new BatchParseSummary(results, System.nanoTime() - startTime, threadCount);
+        }
+
+        catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+            throw new IOException("Batch parse interrupted.", e);
+        }
+
+        catch (ExecutionException e){
+            throw new IOException("Batch parse failed.", e.getCause());
+        }
+
+        finally {
+            pool.shutdownNow();
+        }
+    }
+
+    // This function parses a single file and records the outcome.
+    // It never throws; every failure becomes the result's error message.
+    public static BatchParseResult parseFile(Path assemblyCodeFile){
+        return parseFile(assemblyCodeFile, null);
+    }
+
+    public static BatchParseResult parseFile(Path assemblyCodeFile, ParseCache cache){
+        return parseFile(assemblyCodeFile, cache, null);
+    }
+
+    public static BatchParseResult parseFile(Path assemblyCodeFile, ParseCache cache, ParsedLineCache lineCache){
+        ParseFileEvent event = new ParseFileEvent();
+        event.begin();
+        long startTime = System.nanoTime();
+        int lineCount = 0;
+        long byteCount = 0;
+        String errorMessage = null;
+
+        try {
+            AssemblySource source = AssemblySource.open(assemblyCodeFile);
+            byteCount = source.length();
+            lineCount = (cache == null ? ParseAssemblyCode.collect(source, lineCache) : cache.collect(source, lineCache)).size();
+        }
+
+        catch (IOException e){
+            errorMessage = "Assembly Code file could not be read: " + e.getMessage();
+        }
+
+        catch (SICParsingError e){
+            errorMessage = e.getMessage();
+        }
+
+        catch (RuntimeException e){
+            errorMessage = "Parser failure: " + e;
+        }
+
+        event.commit(assemblyCodeFile, byteCount, lineCount, errorMessage);
+        return new BatchParseResult(assemblyCodeFile, lineCount, byteCount, System.nanoTime() - startTime, errorMessage);
+    }
+
+    // This function lists the files to parse.
+    //    1.) A directory selects every .asm file below it.
+    //    2.) Anything else is a glob such as "programs/**/*.asm". The search starts
+    //        from the part of the path before the first glob character.
+    public static List<Path> findFiles(String directoryOrGlob) throws IOException {
+        Path directory = Path.of(directoryOrGlob);
+        PathMatcher matcher;
+
+        if (Files.isDirectory(directory)){
+            matcher = path -> path.getFileName().toString().endsWith(ASSEMBLY_CODE_EXTENSION);
+        }
+
+        else{
+            int globStart = directoryOrGlob.length();
+            for (int index = 0; index < directoryOrGlob.length(); index++){
+                if (GLOB_CHARACTERS.indexOf(directoryOrGlob.charAt(index)) != -1){
+                    globStart = index;
+                    break;
+                }
+            }
+
+            int separator = directoryOrGlob.lastIndexOf('/', globStart);
+            directory = Path.of(separator == -1 ? "." : directoryOrGlob.substring(0, separator + 1));
+            matcher = FileSystems.getDefault().getPathMatcher("glob:" + directoryOrGlob);
+
+            if (separator == -1){
+                PathMatcher relativeMatcher = matcher;
+                matcher = path -> relativeMatcher.matches(Path.of(".").relativize(path));
+            }
+        }
+
+        PathMatcher fileMatcher = matcher;
+        try (Stream<Path> paths = Files.walk(directory)){
+            return paths.filter(Files::isRegularFile)
+                    .filter(fileMatcher::matches)
+                    .sorted()
+                    .toList();
+        }
+    }
+}
@@ -0,0 +1,53 @@
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+
+// This class writes parse results as compact binary records (big endian).
+// Header: int magic "SICR", short version
+// One record per parsed line:
+//    int line number
+//    byte flags (1 = comment, 2 = indexed, 4 = has label, 8 = has operand)
+//    byte opcode (SICOpcode ordinal, or -1 for none)
+//    int length, raw line bytes (UTF-8)
+//    [byte length, label bytes] if it has a label
+//    [short length, operand bytes] if it has an operand
+public class BinaryResultWriter extends ParseResultWriter {
+    public static final int MAGIC = 0x53494352;
+    public static final int VERSION = 1;
+    public static final int FLAG_COMMENT = 1;
+    public static final int FLAG_INDEXED = 2;
+    public static final int FLAG_LABEL = 4;
+    public static final int FLAG_OPERAND = 8;
+    public static final int NO_OPCODE = -1;
+
+    public BinaryResultWriter(WritableByteChannel channel){
+        super(channel);
+    }
+
+    @Override
+    public void writeHeader() throws IOException {
+        putInt(MAGIC);
+        putShort(VERSION);
+    }
+
+    @Override
+    public void write(ParsedLineOfCode lineOfCode) throws IOException {
+        String label = lineOfCode.getLabel();
+        String operand = lineOfCode.getOperand();
+        CharSequence unparsedLine = unparsedLine(lineOfCode);
+
+        putInt(lineOfCode.getLineNumber());
+        put((byte) ((lineOfCode.getIsComment() ? FLAG_COMMENT : 0) | (lineOfCode.getIsIndexed() ? FLAG_INDEXED : 0)
+                | (label != null ? FLAG_LABEL : 0) | (operand != null ? FLAG_OPERAND : 0)));
+        put((byte) (lineOfCode.getSICOpcode() == null ? NO_OPCODE : lineOfCode.getSICOpcode().ordinal()));
+        putInt(utf8Length(unparsedLine));
+        putText(unparsedLine);
+        if (label != null){
+            put((byte) utf8Length(label));
+            putText(label);
+        }
+        if (operand != null){
+            putShort(utf8Length(operand));
+            putText(operand);
+        }
+    }
+}
@@ -0,0 +1,229 @@
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// This class is a SIC device backed by channels: files, pipes, sockets or
+// memory. Reads and writes go through one buffer each, so RD and WD only move a
+// buffer position; the channel is read or written once per BUFFER_SIZE bytes.
+// Written bytes reach the channel when the buffer fills, on flush() or on close().
+//
+// Attach devices to a simulator by number, e.g. for the usual F1 input and 05 output:
+//    simulator.setDevice(0xF1, ChannelDevice.readingFile(inputFile));
+//    simulator.setDevice(0x05, ChannelDevice.writingFile(outputFile));
+//
+// TD follows the device's Readiness:
+//    ALWAYS                ready on every test
+//    WHEN_DATA_AVAILABLE   an input device is ready while it has a byte to read
+//                          (a pipe blocks until one arrives) and once its input has
+//                          ended, so RD can return the end of input value; output is
+//                          always ready
+//    AFTER_BUSY_POLLS      busy for a number of tests after every RD or WD, like a slow device
+// RD at the end of the input returns the end of input value, 0 by default, which
+// is what SIC programs such as ReadWrite test for.
+// Channel errors are thrown as UncheckedIOException, since SICDevice can't throw IOException.
+public class ChannelDevice implements SICDevice, Flushable, Closeable {
+    public static final int BUFFER_SIZE = 64 * 1024;
+    private final ReadableByteChannel input;
+    private final WritableByteChannel output;
+    private final ByteBuffer readBuffer;
+    private final ByteBuffer writeBuffer;
+    // Set for a device that writes to memory
+    private final ByteArrayOutputStream writtenBytes;
+    private Readiness readiness = Readiness.ALWAYS;
+    private int busyPolls = 0;
+    private int remainingBusyPolls = 0;
+    private int endOfInput = 0;
+    private boolean isInputFinished;
+    private long bytesRead = 0;
+    private long bytesWritten = 0;
+
+    public enum Readiness {
+        ALWAYS,
+        WHEN_DATA_AVAILABLE,
+        AFTER_BUSY_POLLS
+    }
+
+    private ChannelDevice(ReadableByteChannel input, ByteBuffer readBuffer, WritableByteChannel output,
+                          ByteArrayOutputStream writtenBytes){
+        this.input = input;
+        this.output = output;
+        this.readBuffer = readBuffer;
+        this.writeBuffer = ByteBuffer.allocate(output == null ? 0 : BUFFER_SIZE);
+        this.writtenBytes = writtenBytes;
+        this.isInputFinished = input == null;
+    }
+
+    // Either channel may be null: RD then always returns the end of input value,
+    // and WD discards the byte.
+    public static ChannelDevice open(ReadableByteChannel input, WritableByteChannel output){
+        ByteBuffer readBuffer = ByteBuffer.allocate(input == null ? 0 : BUFFER_SIZE).flip();
+        return new ChannelDevice(input, readBuffer, output, null);
+    }
+
+    public static ChannelDevice reading(ReadableByteChannel input){
+        return open(input, null);
+    }
+
+    public static ChannelDevice writing(WritableByteChannel output){
+        return open(null, output);
+    }
+
+    public static ChannelDevice readingFile(Path file) throws IOException {
+        return reading(FileChannel.open(file, StandardOpenOption.READ));
+    }
+
+    // The file is created, or truncated if it exists
+    public static ChannelDevice writingFile(Path file) throws IOException {
+        return writing(FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING));
+    }
+
+    // Reads the bytes in place, without a channel
+    public static ChannelDevice readingBytes(byte[] bytes){
+        return new ChannelDevice(null, ByteBuffer.wrap(bytes), null, null);
+    }
+
+    // Collects written bytes in memory; see getWrittenBytes()
+    public static ChannelDevice writingToMemory(){
+        ByteArrayOutputStream writtenBytes = new ByteArrayOutputStream();
+        ByteBuffer readBuffer = ByteBuffer.allocate(0);
+        return new ChannelDevice(null, readBuffer, Channels.newChannel(writtenBytes), writtenBytes);
+    }
+
+    // TD
+    @Override
+    public boolean isReady(){
+        switch (readiness){
+            case WHEN_DATA_AVAILABLE:
+                return output != null || readBuffer.hasRemaining() || fill() || isInputFinished;
+            case AFTER_BUSY_POLLS:
+                if (remainingBusyPolls > 0){
+                    remainingBusyPolls--;
+                    return false;
+                }
+                return true;
+            default:
+                return true;
+        }
+    }
+
+    // RD
+    @Override
+    public int read(){
+        remainingBusyPolls = busyPolls;
+        if (!readBuffer.hasRemaining() && !fill()){
+            return endOfInput;
+        }
+        bytesRead++;
+        return readBuffer.get() & 0xFF;
+    }
+
+    // WD
+    @Override
+    public void write(int value){
+        remainingBusyPolls = busyPolls;
+        if (output == null){
+            return;
+        }
+        if (!writeBuffer.hasRemaining()){
+            flush();
+        }
+        writeBuffer.put((byte) value);
+        bytesWritten++;
+    }
+
+    // Refills the empty read buffer from the channel. Returns false at the end
+    // of the input, or if a non-blocking channel has nothing to read yet.
+    private boolean fill(){
+        if (isInputFinished){
+            return false;
+        }
+        try {
+            readBuffer.clear();
+            int count = input.read(readBuffer);
+            readBuffer.flip();
+            if (count < 0){
+                isInputFinished = true;
+            }
+            return count > 0;
+        }
+
+        catch (IOException e){
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Writes the buffered bytes to the channel
+    @Override
+    public void flush(){
+        if (output == null){
+            return;
+        }
+        try {
+            writeBuffer.flip();
+            while (writeBuffer.hasRemaining()){
+                output.write(writeBuffer);
+            }
+            writeBuffer.clear();
+        }
+
+        catch (IOException e){
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Flushes, then closes the channels
+    @Override
+    public void close() throws IOException {
+        flush();
+        try (ReadableByteChannel _ = input; WritableByteChannel _ = output){
+            // Closes both, even if closing the first fails
+        }
+    }
+
+    // The bytes written so far by a device from writingToMemory()
+    public byte[] getWrittenBytes(){
+        if (writtenBytes == null){
+            throw new IllegalStateException("The device does not write to memory.");
+        }
+        flush();
+        return writtenBytes.toByteArray();
+    }
+
+    // busyPolls is used by AFTER_BUSY_POLLS: the number of TD tests that
+    // report busy after each RD or WD
+    public void setReadiness(Readiness readiness, int busyPolls){
+        if (busyPolls < 0){
+            throw new IllegalArgumentException("busyPolls must not be negative.");
+        }
+        this.readiness = readiness;
+        this.busyPolls = readiness == Readiness.AFTER_BUSY_POLLS ? busyPolls : 0;
+        this.remainingBusyPolls = 0;
+    }
+
+    public Readiness getReadiness(){
+        return readiness;
+    }
+
+    // The byte RD returns once the input is exhausted
+    public void setEndOfInput(int endOfInput){
+        this.endOfInput = endOfInput & 0xFF;
+    }
+
+    public long getBytesRead(){
+        return bytesRead;
+    }
+
+    public long getBytesWritten(){
+        return bytesWritten;
+    }
+}
@@ -0,0 +1,200 @@
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+// This class parses one large assembly code file in parallel.
+// Label, opcode and operand checks only depend on the line itself,
+// so the file is split into byte ranges at line boundaries and the
+// ranges are parsed on a fork-join pool. The checks that depend on
+// order are then made in one cheap sequential pass:
+//    1.) Line numbers: each chunk's lines are counted first, so every
+//        chunk knows the number of its first line before it is parsed.
+//    2.) START must be the first opcode, and parsing stops at END.
+//        Lines after END are dropped, including any errors on them.
+// The result (or error) matches ParseAssemblyCode.parse line for line.
+public class ChunkedAssemblyParser {
+    // Files smaller than two chunks are not worth splitting
+    private static final int MINIMUM_CHUNK_SIZE = 64 * 1024;
+
+    public static ArrayList<ParsedLineOfCode> parse(Path assemblyCodeFile) throws SICParsingError {
+        try {
+            return parse(AssemblySource.open(assemblyCodeFile), ForkJoinPool.commonPool());
+        }
+
+        catch (IOException e){
+            throw new SICParsingError("Assembly Code file could not be read: " + assemblyCodeFile);
+        }
+    }
+
+    public static ArrayList<ParsedLineOfCode> parse(AssemblySource source, ForkJoinPool pool) throws SICParsingError {
+        int chunkCount = Math.min(pool.getParallelism() * 4, source.length() / MINIMUM_CHUNK_SIZE);
+        ArrayList<ParsedLineOfCode> parsedCodeList;
+
+        if (chunkCount < 2){
+            parsedCodeList = ParseAssemblyCode.collect(source);
+        }
+        else{
+            parsedCodeList = parse(source, pool, chunkCount);
+        }
+
+        System.out.println("Parsing complete.");
+        return parsedCodeList;
+    }
+
+    private static ArrayList<ParsedLineOfCode> parse(AssemblySource source, ForkJoinPool pool, int chunkCount) throws SICParsingError {
+        List<Chunk> chunks = split(source, chunkCount);
+
+        // Count the lines in every chunk, then number them
+        runAll(pool, chunks, Chunk::countLines);
+        int firstLineNumber = 1;
+        int totalLineCount = 0;
+        for (Chunk chunk : chunks){
+            chunk.firstLineNumber = firstLineNumber;
+            firstLineNumber += chunk.lineCount;
+            totalLineCount += chunk.lineCount;
+        }
+
+        runAll(pool, chunks, Chunk::parseLines);
+
+        // Apply the START and END rules in file order
+        ArrayList<ParsedLineOfCode> parsedCodeList = new ArrayList<>(totalLineCount);
+        boolean startFound = false;
+        for (Chunk chunk : chunks){
+            for (int index = 0; index < chunk.parsedCount; index++){
+                ParsedLineOfCode lineOfCode = chunk.lines[index];
+                parsedCodeList.add(lineOfCode);
+
+                if (lineOfCode.getIsComment()){
+                    continue;
+                }
+
+                if (ParseAssemblyCode.isEndOfProgram(lineOfCode, startFound)){
+                    return parsedCodeList;
+                }
+                startFound = true;
+            }
+
+            if (chunk.error != null){
+                ParseMetrics.increment(ParseMetrics.Counter.ERRORS);
+                throw chunk.error;
+            }
+        }
+
+        ParseAssemblyCode.checkEndFound(false);
+        return parsedCodeList;
+    }
+
+    private static List<Chunk> split(AssemblySource source, int chunkCount){
+        List<Chunk> chunks = new ArrayList<>(chunkCount);
+        int chunkSize = source.length() / chunkCount;
+        int start = 0;
+
+        while (start < source.length()){
+            int end = source.nextLineBoundary(Math.min(start + chunkSize, source.length()) - 1);
+            chunks.add(new Chunk(source, start, end));
+            start = end;
+        }
+
+        return chunks;
+    }
+
+    private static void runAll(ForkJoinPool pool, List<Chunk> chunks, ChunkTask task) throws SICParsingError {
+        List<Callable<Void>> tasks = new ArrayList<>(chunks.size());
+        for (Chunk chunk : chunks){
+            tasks.add(() -> {
+                task.run(chunk);
+                return null;
+            });
+        }
+
+        try {
+            for (Future<Void> future : pool.invokeAll(tasks)){
+                future.get();
+            }
+        }
+
+        catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+            throw new SICParsingError("Parser Error: parse interrupted.");
+        }
+
+        catch (ExecutionException e){
+            if (e.getCause() instanceof RuntimeException runtimeException){
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private interface ChunkTask {
+        void run(Chunk chunk);
+    }
+
+    // A byte range of the source and the lines parsed from it.
+    // Parsing a chunk stops at its first error or END, since nothing after
+    // either of those can change the result.
+    private static class Chunk {
+        private final AssemblySource source;
+        private final int start;
+        private final int end;
+        private int firstLineNumber;
+        private int lineCount = 0;
+        private ParsedLineOfCode[] lines;
+        private int parsedCount = 0;
+        private SICParsingError error;
+
+        private Chunk(AssemblySource source, int start, int end){
+            this.source = source;
+            this.start = start;
+            this.end = end;
+        }
+
+        private void countLines(){
+            AssemblySource slice = source.slice(start, end);
+            while (slice.nextLine()){
+                lineCount++;
+            }
+        }
+
+        private void parseLines(){
+            AssemblySource slice = source.slice(start, end);
+            SourceLine sourceLine = new SourceLine();
+            AssemblyLineLexer lexer = new AssemblyLineLexer();
+            // Chunks after the first error or END are parsed too, so a problem is
+            // only counted in ParseMetrics if parse() throws it
+            ParseDiagnostics problem = new ParseDiagnostics(false);
+            int lineNumber = firstLineNumber;
+            lines = new ParsedLineOfCode[lineCount];
+
+            while (slice.nextLine()){
+                sourceLine.set(slice, slice.lineStart(), slice.lineEnd());
+                ParsedLineOfCode lineOfCode = new ParsedLineOfCode();
+                lineOfCode.setLineNumber(lineNumber++);
+                lineOfCode.setUnparsedLineOfCode(slice, slice.lineStart(), slice.lineEnd());
+
+                try {
+                    if (!ParseAssemblyCode.parseLine(lineOfCode, sourceLine, lexer, problem)){
+                        error = ParseAssemblyCode.lineError(lineOfCode, problem.getErrorCode(0), problem.getMessage(0));
+                        return;
+                    }
+                }
+
+                catch (SICParsingError e){
+                    // Only thrown when parsing without diagnostics
+                    error = e;
+                    return;
+                }
+
+                lines[parsedCount++] = lineOfCode;
+                if (!lineOfCode.getIsComment() && lineOfCode.getSICOpcode() == SICOpcode.END){
+                    return;
+                }
+            }
+        }
+    }
+}
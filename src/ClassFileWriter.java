@@ -0,0 +1,349 @@
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+
+// This class writes a class file holding one public static method, for the code
+// SICCompiler generates. It knows only the handful of constant pool entries and
+// instructions the compiler uses.
+// Class files are written as version 49 (Java 5), the last version checked by the
+// type-inferencing verifier, so no StackMapTable has to be computed for the method.
+//
+// Branches refer to labels from newLabel(); their offsets are filled in when the
+// class file is written. Offsets are 16 bits, so the method must stay under 32 KB.
+final class ClassFileWriter {
+    static final int ICONST_0 = 0x03;
+    static final int ICONST_1 = 0x04;
+    static final int ICONST_2 = 0x05;
+    static final int BIPUSH = 0x10;
+    static final int SIPUSH = 0x11;
+    static final int LDC_W = 0x13;
+    static final int LDC2_W = 0x14;
+    static final int ILOAD = 0x15;
+    static final int LLOAD = 0x16;
+    static final int ALOAD = 0x19;
+    static final int IALOAD = 0x2E;
+    static final int LALOAD = 0x2F;
+    static final int BALOAD = 0x33;
+    static final int ISTORE = 0x36;
+    static final int LSTORE = 0x37;
+    static final int IASTORE = 0x4F;
+    static final int LASTORE = 0x50;
+    static final int BASTORE = 0x54;
+    static final int IADD = 0x60;
+    static final int LADD = 0x61;
+    static final int ISUB = 0x64;
+    static final int LSUB = 0x65;
+    static final int IMUL = 0x68;
+    static final int IDIV = 0x6C;
+    static final int IAND = 0x7E;
+    static final int IOR = 0x80;
+    static final int I2B = 0x91;
+    static final int LCMP = 0x94;
+    static final int IFEQ = 0x99;
+    static final int IFNE = 0x9A;
+    static final int IFLE = 0x9E;
+    static final int IF_ICMPNE = 0xA0;
+    static final int IF_ICMPLE = 0xA4;
+    static final int GOTO = 0xA7;
+    static final int LOOKUPSWITCH = 0xAB;
+    static final int IRETURN = 0xAC;
+    static final int INVOKESTATIC = 0xB8;
+    private static final int CLASS_FILE_MAGIC = 0xCAFEBABE;
+    private static final int CLASS_FILE_VERSION = 49;
+    private static final int ACC_PUBLIC = 0x0001;
+    private static final int ACC_STATIC = 0x0008;
+    private static final int ACC_FINAL = 0x0010;
+    private static final int ACC_SUPER = 0x0020;
+    private static final int CONSTANT_UTF8 = 1;
+    private static final int CONSTANT_INTEGER = 3;
+    private static final int CONSTANT_LONG = 5;
+    private static final int CONSTANT_CLASS = 7;
+    private static final int CONSTANT_METHODREF = 10;
+    private static final int CONSTANT_NAME_AND_TYPE = 12;
+    private final ByteArrayOutputStream constantBytes = new ByteArrayOutputStream();
+    private final DataOutputStream constants = new DataOutputStream(constantBytes);
+    private final HashMap<String, Integer> constantIndexes = new HashMap<>();
+    private int constantCount = 1;
+    private byte[] code = new byte[4096];
+    private int codeLength = 0;
+    private int[] labelPositions = new int[64];
+    private int labelCount = 0;
+    // Branch fixups: the position of the branch instruction, of its offset, the label, and the offset size
+    private int[] fixups = new int[256];
+    private int fixupCount = 0;
+
+    int newLabel(){
+        if (labelCount == labelPositions.length){
+            labelPositions = Arrays.copyOf(labelPositions, labelCount * 2);
+        }
+        labelPositions[labelCount] = -1;
+        return labelCount++;
+    }
+
+    // Places the label at the next instruction
+    void bind(int label){
+        labelPositions[label] = codeLength;
+    }
+
+    int getCodeLength(){
+        return codeLength;
+    }
+
+    void op(int opcode){
+        putByte(opcode);
+    }
+
+    // An instruction with a local variable index, such as ILOAD
+    void local(int opcode, int index){
+        putByte(opcode);
+        putByte(index);
+    }
+
+    void pushInt(int value){
+        if (value >= -1 && value <= 5){
+            putByte(ICONST_0 + value);
+        }
+        else if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE){
+            putByte(BIPUSH);
+            putByte(value);
+        }
+        else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE){
+            putByte(SIPUSH);
+            putShort(value);
+        }
+        else{
+            putByte(LDC_W);
+            putShort(constant("I" + value, CONSTANT_INTEGER, value));
+        }
+    }
+
+    void pushLong(long value){
+        putByte(LDC2_W);
+        putShort(longConstant(value));
+    }
+
+    // A conditional branch or GOTO
+    void jump(int opcode, int label){
+        addFixup(codeLength, label, 2);
+        putByte(opcode);
+        putShort(0);
+    }
+
+    // keys must be sorted in increasing order
+    void lookupSwitch(int[] keys, int[] labels, int keyCount, int defaultLabel){
+        int opcodePosition = codeLength;
+        putByte(LOOKUPSWITCH);
+        while (codeLength % 4 != 0){
+            putByte(0);
+        }
+        addFixup(opcodePosition, defaultLabel, 4);
+        putInt(0);
+        putInt(keyCount);
+        for (int index = 0; index < keyCount; index++){
+            putInt(keys[index]);
+            addFixup(opcodePosition, labels[index], 4);
+            putInt(0);
+        }
+    }
+
+    void invokeStatic(String owner, String name, String descriptor){
+        putByte(INVOKESTATIC);
+        putShort(methodConstant(owner, name, descriptor));
+    }
+
+    // This function returns the class file, with the code written so far as the
+    // body of "public static <methodName><descriptor>".
+    byte[] toClassFile(String className, String methodName, String descriptor, int maximumStack, int maximumLocals){
+        for (int index = 0; index < fixupCount; index++){
+            int opcodePosition = fixups[index * 4];
+            int offsetPosition = fixups[index * 4 + 1];
+            int target = labelPositions[fixups[index * 4 + 2]];
+            if (target < 0){
+                throw new IllegalStateException("Branch to a label that was never bound.");
+            }
+            int offset = target - opcodePosition;
+            if (fixups[index * 4 + 3] == 2){
+                if (offset < Short.MIN_VALUE || offset > Short.MAX_VALUE){
+                    throw new IllegalStateException("Branch offset does not fit in 16 bits: " + offset);
+                }
+                code[offsetPosition] = (byte) (offset >>> 8);
+                code[offsetPosition + 1] = (byte) offset;
+            }
+            else{
+                code[offsetPosition] = (byte) (offset >>> 24);
+                code[offsetPosition + 1] = (byte) (offset >>> 16);
+                code[offsetPosition + 2] = (byte) (offset >>> 8);
+                code[offsetPosition + 3] = (byte) offset;
+            }
+        }
+
+        int thisClass = classConstant(className);
+        int superClass = classConstant("java/lang/Object");
+        int methodNameIndex = utf8Constant(methodName);
+        int descriptorIndex = utf8Constant(descriptor);
+        int codeAttributeName = utf8Constant("Code");
+
+        try {
+            ByteArrayOutputStream classBytes = new ByteArrayOutputStream(codeLength + constantBytes.size() + 128);
+            DataOutputStream output = new DataOutputStream(classBytes);
+            output.writeInt(CLASS_FILE_MAGIC);
+            output.writeShort(0);
+            output.writeShort(CLASS_FILE_VERSION);
+            output.writeShort(constantCount);
+            constantBytes.writeTo(output);
+            output.writeShort(ACC_PUBLIC | ACC_FINAL | ACC_SUPER);
+            output.writeShort(thisClass);
+            output.writeShort(superClass);
+            output.writeShort(0); // interfaces
+            output.writeShort(0); // fields
+            output.writeShort(1); // methods
+            output.writeShort(ACC_PUBLIC | ACC_STATIC);
+            output.writeShort(methodNameIndex);
+            output.writeShort(descriptorIndex);
+            output.writeShort(1); // method attributes
+            output.writeShort(codeAttributeName);
+            output.writeInt(12 + codeLength);
+            output.writeShort(maximumStack);
+            output.writeShort(maximumLocals);
+            output.writeInt(codeLength);
+            output.write(code, 0, codeLength);
+            output.writeShort(0); // exception table
+            output.writeShort(0); // code attributes
+            output.writeShort(0); // class attributes
+            return classBytes.toByteArray();
+        }
+
+        catch (IOException e){
+            // ByteArrayOutputStream doesn't throw
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void addFixup(int opcodePosition, int label, int size){
+        if (fixupCount * 4 == fixups.length){
+            fixups = Arrays.copyOf(fixups, fixups.length * 2);
+        }
+        fixups[fixupCount * 4] = opcodePosition;
+        fixups[fixupCount * 4 + 1] = codeLength + (size == 2 ? 1 : 0);
+        fixups[fixupCount * 4 + 2] = label;
+        fixups[fixupCount * 4 + 3] = size;
+        fixupCount++;
+    }
+
+    private void putByte(int value){
+        if (codeLength == code.length){
+            code = Arrays.copyOf(code, code.length * 2);
+        }
+        code[codeLength++] = (byte) value;
+    }
+
+    private void putShort(int value){
+        putByte(value >>> 8);
+        putByte(value);
+    }
+
+    private void putInt(int value){
+        putShort(value >>> 16);
+        putShort(value);
+    }
+
+    // The constant pool entries are written as they are first used
+
+    private int utf8Constant(String value){
+        Integer index = constantIndexes.get("U" + value);
+        if (index != null){
+            return index;
+        }
+        try {
+            constants.writeByte(CONSTANT_UTF8);
+            constants.writeUTF(value);
+        }
+
+        catch (IOException e){
+            throw new IllegalStateException(e);
+        }
+        return addConstant("U" + value, 1);
+    }
+
+    private int classConstant(String name){
+        Integer index = constantIndexes.get("C" + name);
+        if (index != null){
+            return index;
+        }
+        return constant("C" + name, CONSTANT_CLASS, utf8Constant(name), -1);
+    }
+
+    private int methodConstant(String owner, String name, String descriptor){
+        String key = "M" + owner + "." + name + descriptor;
+        Integer index = constantIndexes.get(key);
+        if (index != null){
+            return index;
+        }
+        int ownerIndex = classConstant(owner);
+        int nameAndType = constant("T" + name + descriptor, CONSTANT_NAME_AND_TYPE, utf8Constant(name), utf8Constant(descriptor));
+        return constant(key, CONSTANT_METHODREF, ownerIndex, nameAndType);
+    }
+
+    private int longConstant(long value){
+        Integer index = constantIndexes.get("J" + value);
+        if (index != null){
+            return index;
+        }
+        try {
+            constants.writeByte(CONSTANT_LONG);
+            constants.writeLong(value);
+        }
+
+        catch (IOException e){
+            throw new IllegalStateException(e);
+        }
+        // A long takes two constant pool slots
+        return addConstant("J" + value, 2);
+    }
+
+    // An entry holding one int
+    private int constant(String key, int tag, int value){
+        Integer index = constantIndexes.get(key);
+        if (index != null){
+            return index;
+        }
+        try {
+            constants.writeByte(tag);
+            constants.writeInt(value);
+        }
+
+        catch (IOException e){
+            throw new IllegalStateException(e);
+        }
+        return addConstant(key, 1);
+    }
+
+    // An entry holding one or two constant pool indexes; second is -1 for one
+    private int constant(String key, int tag, int first, int second){
+        Integer index = constantIndexes.get(key);
+        if (index != null){
+            return index;
+        }
+        try {
+            constants.writeByte(tag);
+            constants.writeShort(first);
+            if (second >= 0){
+                constants.writeShort(second);
+            }
+        }
+
+        catch (IOException e){
+            throw new IllegalStateException(e);
+        }
+        return addConstant(key, 1);
+    }
+
+    private int addConstant(String key, int slots){
+        int index = constantCount;
+        constantIndexes.put(key, index);
+        constantCount += slots;
+        return index;
+    }
+}
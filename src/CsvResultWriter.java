@@ -0,0 +1,51 @@
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+
+// This class writes parse results as CSV (RFC 4180): a header row, then one
+// row per parsed line. Text fields are always quoted, with quotes doubled;
+// missing fields are left empty.
+public class CsvResultWriter extends ParseResultWriter {
+    private static final String HEADER = "lineNumber,line,isComment,label,opcode,operand,isIndexed\r\n";
+
+    public CsvResultWriter(WritableByteChannel channel){
+        super(channel);
+    }
+
+    @Override
+    public void writeHeader() throws IOException {
+        putAscii(HEADER);
+    }
+
+    @Override
+    public void write(ParsedLineOfCode lineOfCode) throws IOException {
+        putDecimal(lineOfCode.getLineNumber());
+        put((byte) ',');
+        putField(unparsedLine(lineOfCode));
+        put((byte) ',');
+        putAscii(lineOfCode.getIsComment() ? "true" : "false");
+        put((byte) ',');
+        putField(lineOfCode.getLabel());
+        put((byte) ',');
+        putField(lineOfCode.getOpcode());
+        put((byte) ',');
+        putField(lineOfCode.getOperand());
+        put((byte) ',');
+        putAscii(lineOfCode.getIsIndexed() ? "true" : "false");
+        putAscii("\r\n");
+    }
+
+    private void putField(CharSequence text) throws IOException {
+        if (text == null){
+            return;
+        }
+
+        put((byte) '"');
+        for (int index = 0; index < text.length(); index++){
+            if (text.charAt(index) == '"'){
+                put((byte) '"');
+            }
+            index = putCharacter(text, index);
+        }
+        put((byte) '"');
+    }
+}
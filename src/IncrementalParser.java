@@ -0,0 +1,204 @@
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+// This class keeps the parse of one assembly code file up to date as it is edited.
+// Every line is remembered with a hash of its text, its ParsedLineOfCode and its
+// diagnostic (if any). When new contents arrive, the lines are hashed and compared
+// with the previous version: the unchanged lines at the start and end of the file
+// are kept, only the lines in between are parsed again, and kept lines below the
+// edit are just renumbered.
+// The program rules (START first, END present, nothing read after END) depend on
+// the order of lines, so they are re-checked on every update, but only by looking
+// at the opcode and validity already stored for each line.
+// The diagnostics are the same as ParseAssemblyCode.parse(Path, ParseDiagnostics)
+// gives for the same contents.
+public class IncrementalParser {
+    private static final int INITIAL_CAPACITY = 256;
+    private static final long FNV_OFFSET_BASIS = 0xCBF29CE484222325L;
+    private static final long FNV_PRIME = 0x100000001B3L;
+    private static final byte NO_ERROR = -1;
+    private static final ParseErrorCode[] ERROR_CODES = ParseErrorCode.values();
+    private final SourceLine sourceLine = new SourceLine();
+    private final AssemblyLineLexer lexer = new AssemblyLineLexer();
+    private final ParseDiagnostics lineDiagnostics = new ParseDiagnostics(false);
+    private int lineCount = 0;
+    private long[] lineHashes = new long[0];
+    private ParsedLineOfCode[] lines = new ParsedLineOfCode[0];
+    private byte[] errorCodes = new byte[0];
+    private int[] errorStartColumns = new int[0];
+    private int[] errorEndColumns = new int[0];
+    private String[] errorMessages = new String[0];
+    private ParseDiagnostics diagnostics = new ParseDiagnostics();
+    private int endLineIndex = -1;
+    private int reparsedLineCount = 0;
+
+    // This function brings the parse up to date with the new contents of the file
+    // and returns the diagnostics for the whole file.
+    // ParsedLineOfCode objects for unchanged lines are reused, and the line numbers
+    // of lines below an edit are updated in place.
+    public ParseDiagnostics update(byte[] contents, int length) throws SICParsingError {
+        AssemblySource source = AssemblySource.wrap(contents, length);
+
+        // Split and hash the new contents
+        int newLineCount = 0;
+        int[] lineStarts = new int[Math.max(lineCount, INITIAL_CAPACITY)];
+        int[] lineEnds = new int[lineStarts.length];
+        long[] newLineHashes = new long[lineStarts.length];
+        while (source.nextLine()){
+            if (newLineCount == lineStarts.length){
+                int newCapacity = newLineCount * 2;
+                lineStarts = Arrays.copyOf(lineStarts, newCapacity);
+                lineEnds = Arrays.copyOf(lineEnds, newCapacity);
+                newLineHashes = Arrays.copyOf(newLineHashes, newCapacity);
+            }
+            lineStarts[newLineCount] = source.lineStart();
+            lineEnds[newLineCount] = source.lineEnd();
+            newLineHashes[newLineCount] = hash(source, source.lineStart(), source.lineEnd());
+            newLineCount++;
+        }
+
+        // Lines that match at the start and at the end of the file are kept
+        int commonLimit = Math.min(lineCount, newLineCount);
+        int prefixLength = 0;
+        while (prefixLength < commonLimit && lineHashes[prefixLength] == newLineHashes[prefixLength]){
+            prefixLength++;
+        }
+        int suffixLength = 0;
+        while (suffixLength < commonLimit - prefixLength
+                && lineHashes[lineCount - 1 - suffixLength] == newLineHashes[newLineCount - 1 - suffixLength]){
+            suffixLength++;
+        }
+
+        ParsedLineOfCode[] newLines = new ParsedLineOfCode[newLineCount];
+        byte[] newErrorCodes = new byte[newLineCount];
+        int[] newErrorStartColumns = new int[newLineCount];
+        int[] newErrorEndColumns = new int[newLineCount];
+        String[] newErrorMessages = new String[newLineCount];
+
+        int oldSuffixStart = lineCount - suffixLength;
+        int newSuffixStart = newLineCount - suffixLength;
+        copyLines(0, newLines, newErrorCodes, newErrorStartColumns, newErrorEndColumns, newErrorMessages, 0, prefixLength);
+        copyLines(oldSuffixStart, newLines, newErrorCodes, newErrorStartColumns, newErrorEndColumns, newErrorMessages,
+                newSuffixStart, suffixLength);
+        if (newSuffixStart != oldSuffixStart){
+            for (int index = newSuffixStart; index < newLineCount; index++){
+                newLines[index].setLineNumber(index + 1);
+            }
+        }
+
+        // Only the lines in between are parsed again. The first parse keeps its lines
+        // as views of the contents; later edits copy the changed lines out, so old
+        // versions of the file are not kept alive by the lines that survive them.
+        boolean isFirstParse = lines.length == 0;
+        for (int index = prefixLength; index < newSuffixStart; index++){
+            ParsedLineOfCode lineOfCode = new ParsedLineOfCode();
+            lineOfCode.setLineNumber(index + 1);
+            if (isFirstParse){
+                lineOfCode.setUnparsedLineOfCode(source, lineStarts[index], lineEnds[index]);
+            }
+            else{
+                lineOfCode.setUnparsedLineOfCode(source.text(lineStarts[index], lineEnds[index]));
+            }
+            sourceLine.set(source, lineStarts[index], lineEnds[index]);
+
+            lineDiagnostics.clear();
+            newLines[index] = lineOfCode;
+            if (ParseAssemblyCode.parseLine(lineOfCode, sourceLine, lexer, lineDiagnostics)){
+                newErrorCodes[index] = NO_ERROR;
+            }
+            else{
+                newErrorCodes[index] = (byte) lineDiagnostics.getErrorCode(0).ordinal();
+                newErrorStartColumns[index] = lineDiagnostics.getStartColumn(0);
+                newErrorEndColumns[index] = lineDiagnostics.getEndColumn(0);
+                newErrorMessages[index] = lineDiagnostics.getMessage(0);
+            }
+        }
+
+        lineCount = newLineCount;
+        lineHashes = Arrays.copyOf(newLineHashes, newLineCount);
+        lines = newLines;
+        errorCodes = newErrorCodes;
+        errorStartColumns = newErrorStartColumns;
+        errorEndColumns = newErrorEndColumns;
+        errorMessages = newErrorMessages;
+        reparsedLineCount = newSuffixStart - prefixLength;
+
+        checkProgramRules();
+        return diagnostics;
+    }
+
+    private void copyLines(int from, ParsedLineOfCode[] newLines, byte[] newErrorCodes, int[] newErrorStartColumns,
+                           int[] newErrorEndColumns, String[] newErrorMessages, int to, int count){
+        System.arraycopy(lines, from, newLines, to, count);
+        System.arraycopy(errorCodes, from, newErrorCodes, to, count);
+        System.arraycopy(errorStartColumns, from, newErrorStartColumns, to, count);
+        System.arraycopy(errorEndColumns, from, newErrorEndColumns, to, count);
+        System.arraycopy(errorMessages, from, newErrorMessages, to, count);
+    }
+
+    // Rebuilds the diagnostics for the whole file from the stored line results,
+    // applying the same START and END rules as ParsedLineIterator.
+    private void checkProgramRules(){
+        ParseDiagnostics programDiagnostics = new ParseDiagnostics();
+        boolean startFound = false;
+        endLineIndex = -1;
+
+        for (int index = 0; index < lineCount && endLineIndex < 0; index++){
+            ParsedLineOfCode lineOfCode = lines[index];
+            if (errorCodes[index] != NO_ERROR){
+                programDiagnostics.add(index + 1, errorStartColumns[index], errorEndColumns[index],
+                        ERROR_CODES[errorCodes[index]], errorMessages[index]);
+                continue;
+            }
+            if (lineOfCode.getIsComment()){
+                continue;
+            }
+
+            if (!startFound && lineOfCode.getSICOpcode() != SICOpcode.START){
+                // Reported once, as if START had been found
+                int lineLength = lineOfCode.getUnparsedLineOfCode().getBytes(StandardCharsets.UTF_8).length;
+                programDiagnostics.add(index + 1, 0, lineLength,
+                        ParseErrorCode.START_NOT_FIRST, ParseAssemblyCode.START_NOT_FIRST_MESSAGE);
+            }
+            if (lineOfCode.getSICOpcode() == SICOpcode.END){
+                endLineIndex = index;
+            }
+            startFound = true;
+        }
+
+        if (endLineIndex < 0){
+            programDiagnostics.add(lineCount, 0, 0, ParseErrorCode.MISSING_END, ParseAssemblyCode.MISSING_END_MESSAGE);
+        }
+        diagnostics = programDiagnostics;
+    }
+
+    // 64-bit FNV-1a over the bytes of one line
+    private static long hash(AssemblySource source, int start, int end){
+        long hash = FNV_OFFSET_BASIS;
+        for (int index = start; index < end; index++){
+            hash = (hash ^ source.charAt(index)) * FNV_PRIME;
+        }
+        return hash;
+    }
+
+    public ParseDiagnostics getDiagnostics(){
+        return diagnostics;
+    }
+
+    // The parsed lines up to and including END (or every line if END is missing),
+    // the same lines ParseAssemblyCode.parse(Path, ParseDiagnostics) returns.
+    public ArrayList<ParsedLineOfCode> getParsedCodeList(){
+        int count = endLineIndex < 0 ? lineCount : endLineIndex + 1;
+        return new ArrayList<>(Arrays.asList(lines).subList(0, count));
+    }
+
+    public int getLineCount(){
+        return lineCount;
+    }
+
+    // The number of lines parsed again by the last update
+    public int getReparsedLineCount(){
+        return reparsedLineCount;
+    }
+}
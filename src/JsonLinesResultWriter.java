@@ -0,0 +1,66 @@
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+
+// This class writes one JSON object per parsed line (JSON Lines):
+//    {"lineNumber":1,"line":"COPY\tSTART\t1000","isComment":false,
+//     "label":"COPY","opcode":"START","operand":"1000","isIndexed":false}
+// Missing fields are null. Text is escaped as it is copied into the buffer.
+public class JsonLinesResultWriter extends ParseResultWriter {
+    private static final byte[] HEX_CHARACTERS = {'0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'a', 'b', 'c', 'd', 'e', 'f'};
+
+    public JsonLinesResultWriter(WritableByteChannel channel){
+        super(channel);
+    }
+
+    @Override
+    public void write(ParsedLineOfCode lineOfCode) throws IOException {
+        putAscii("{\"lineNumber\":");
+        putDecimal(lineOfCode.getLineNumber());
+        putAscii(",\"line\":");
+        putString(unparsedLine(lineOfCode));
+        putAscii(",\"isComment\":");
+        putAscii(lineOfCode.getIsComment() ? "true" : "false");
+        putAscii(",\"label\":");
+        putString(lineOfCode.getLabel());
+        putAscii(",\"opcode\":");
+        putString(lineOfCode.getOpcode());
+        putAscii(",\"operand\":");
+        putString(lineOfCode.getOperand());
+        putAscii(",\"isIndexed\":");
+        putAscii(lineOfCode.getIsIndexed() ? "true" : "false");
+        putAscii("}\n");
+    }
+
+    // Writes a JSON string, or null
+    private void putString(CharSequence text) throws IOException {
+        if (text == null){
+            putAscii("null");
+            return;
+        }
+
+        put((byte) '"');
+        for (int index = 0; index < text.length(); index++){
+            char character = text.charAt(index);
+            if (character == '"' || character == '\\'){
+                put((byte) '\\');
+                put((byte) character);
+            }
+            else if (character < ' '){
+                switch (character){
+                    case '\t' -> putAscii("\\t");
+                    case '\r' -> putAscii("\\r");
+                    case '\n' -> putAscii("\\n");
+                    default -> {
+                        putAscii("\\u00");
+                        put(HEX_CHARACTERS[character >>> 4]);
+                        put(HEX_CHARACTERS[character & 0xF]);
+                    }
+                }
+            }
+            else{
+                index = putCharacter(text, index);
+            }
+        }
+        put((byte) '"');
+    }
+}
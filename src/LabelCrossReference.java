@@ -0,0 +1,217 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// This class is a cross-reference index of the labels in a program: the line
+// that defines each label and the lines whose operand uses it.
+// Lines are added one at a time as they are parsed (see add()), so the index is
+// ready when parsing ends, and undefined and unused labels are counted as lines
+// arrive instead of by scanning the program again. Pass the index to the parse:
+//    LabelCrossReference crossReference = new LabelCrossReference();
+//    ParseAssemblyCode.collect(source, null, crossReference);
+//    new ParsedLineIterator(source, diagnostics, false, null, crossReference);
+// or build it from a program that has already been parsed with build().
+//
+// Labels are packed into longs and looked up in a SymbolTable, which maps each
+// label to an entry of the parallel arrays below. The referencing lines of an
+// entry are a growing int array, so no line number is boxed.
+//
+// Rules:
+//    1.) A label is defined by the label field of a line; only the first definition counts
+//    2.) A label is used by the operand of an instruction (",X" is not part of it)
+//        or of END
+//    3.) The label of START names the program, so it is never reported as unused
+public class LabelCrossReference {
+    public static final int NOT_DEFINED = -1;
+    private static final int INITIAL_CAPACITY = 64;
+    private static final int INITIAL_REFERENCE_CAPACITY = 4;
+    private static final int[] NO_REFERENCES = new int[0];
+    private final SymbolTable entryIndexes = new SymbolTable();
+    private long[] labels = new long[INITIAL_CAPACITY];
+    private int[] definitionLines = new int[INITIAL_CAPACITY];
+    private int[][] referenceLines = new int[INITIAL_CAPACITY][];
+    private int[] referenceCounts = new int[INITIAL_CAPACITY];
+    private int size = 0;
+    private int programNameEntry = -1;
+    private int undefinedCount = 0;
+    private int unusedCount = 0;
+
+    // This function indexes every line of a parsed program
+    public static LabelCrossReference build(List<ParsedLineOfCode> parsedCodeList){
+        LabelCrossReference crossReference = new LabelCrossReference();
+        for (ParsedLineOfCode lineOfCode : parsedCodeList){
+            crossReference.add(lineOfCode);
+        }
+        return crossReference;
+    }
+
+    public void add(ParsedLineOfCode lineOfCode){
+        if (lineOfCode.getIsComment()){
+            return;
+        }
+        SICOpcode opcode = lineOfCode.getSICOpcode();
+        String operand = opcode == SICOpcode.END ? AssemblerPass1.getEndOperand(lineOfCode) : lineOfCode.getOperand();
+        add(lineOfCode.getLineNumber(), lineOfCode.getLabel(), opcode, operand);
+    }
+
+    // operand is the operand as ParsedLineOfCode keeps it, with ",X" removed
+    public void add(int lineNumber, String label, SICOpcode opcode, String operand){
+        if (label != null && !label.isEmpty()){
+            define(lineNumber, label, opcode == SICOpcode.START);
+        }
+        if (operand != null && isLabelReference(opcode, operand)){
+            reference(lineNumber, operand);
+        }
+    }
+
+    private static boolean isLabelReference(SICOpcode opcode, String operand){
+        if (opcode == null || (opcode.isDirective() && opcode != SICOpcode.END)){
+            return false;
+        }
+        return SICCharacters.isLabel(operand, 0, operand.length());
+    }
+
+    private void define(int lineNumber, String label, boolean isProgramName){
+        int entry = entry(SymbolTable.pack(label));
+        if (definitionLines[entry] != NOT_DEFINED){
+            return;
+        }
+        definitionLines[entry] = lineNumber;
+        if (isProgramName){
+            programNameEntry = entry;
+        }
+
+        if (referenceCounts[entry] > 0){
+            undefinedCount--;
+        }
+        else if (!isProgramName){
+            unusedCount++;
+        }
+    }
+
+    private void reference(int lineNumber, String label){
+        int entry = entry(SymbolTable.pack(label));
+        int count = referenceCounts[entry];
+
+        if (count == 0){
+            if (definitionLines[entry] == NOT_DEFINED){
+                undefinedCount++;
+            }
+            else if (entry != programNameEntry){
+                unusedCount--;
+            }
+            referenceLines[entry] = new int[INITIAL_REFERENCE_CAPACITY];
+        }
+        else if (count == referenceLines[entry].length){
+            referenceLines[entry] = Arrays.copyOf(referenceLines[entry], count * 2);
+        }
+        referenceLines[entry][count] = lineNumber;
+        referenceCounts[entry] = count + 1;
+    }
+
+    // Returns the entry of a packed label, adding one if there is none
+    private int entry(long key){
+        int entry = entryIndexes.get(key);
+        if (entry != SymbolTable.NOT_FOUND){
+            return entry;
+        }
+
+        if (size == labels.length){
+            int capacity = size * 2;
+            labels = Arrays.copyOf(labels, capacity);
+            definitionLines = Arrays.copyOf(definitionLines, capacity);
+            referenceLines = Arrays.copyOf(referenceLines, capacity);
+            referenceCounts = Arrays.copyOf(referenceCounts, capacity);
+        }
+        labels[size] = key;
+        definitionLines[size] = NOT_DEFINED;
+        referenceCounts[size] = 0;
+        entryIndexes.put(key, size);
+        return size++;
+    }
+
+    // Returns the entry of a label, or NOT_FOUND if the index doesn't know it
+    private int find(CharSequence label){
+        if (!SICCharacters.isLabel(label, 0, label.length())){
+            return SymbolTable.NOT_FOUND;
+        }
+        return entryIndexes.get(SymbolTable.pack(label));
+    }
+
+    // The line number that defines the label, or NOT_DEFINED
+    public int getDefinitionLine(CharSequence label){
+        int entry = find(label);
+        return entry == SymbolTable.NOT_FOUND ? NOT_DEFINED : definitionLines[entry];
+    }
+
+    public int getReferenceCount(CharSequence label){
+        int entry = find(label);
+        return entry == SymbolTable.NOT_FOUND ? 0 : referenceCounts[entry];
+    }
+
+    // The line numbers that use the label, in the order they were added
+    public int[] getReferenceLines(CharSequence label){
+        int entry = find(label);
+        if (entry == SymbolTable.NOT_FOUND || referenceCounts[entry] == 0){
+            return NO_REFERENCES;
+        }
+        return Arrays.copyOf(referenceLines[entry], referenceCounts[entry]);
+    }
+
+    // The number of labels that are defined or used
+    public int size(){
+        return size;
+    }
+
+    public int getUndefinedCount(){
+        return undefinedCount;
+    }
+
+    public int getUnusedCount(){
+        return unusedCount;
+    }
+
+    // Labels that are used but never defined, in the order they first appear
+    public List<String> getUndefinedLabels(){
+        List<String> undefinedLabels = new ArrayList<>(undefinedCount);
+        for (int entry = 0; entry < size && undefinedLabels.size() < undefinedCount; entry++){
+            if (definitionLines[entry] == NOT_DEFINED){
+                undefinedLabels.add(SymbolTable.unpack(labels[entry]));
+            }
+        }
+        return undefinedLabels;
+    }
+
+    // Labels that are defined but never used, in the order they first appear
+    public List<String> getUnusedLabels(){
+        List<String> unusedLabels = new ArrayList<>(unusedCount);
+        for (int entry = 0; entry < size && unusedLabels.size() < unusedCount; entry++){
+            if (referenceCounts[entry] == 0 && entry != programNameEntry){
+                unusedLabels.add(SymbolTable.unpack(labels[entry]));
+            }
+        }
+        return unusedLabels;
+    }
+
+    // This function formats the index as a listing: every label with its
+    // defining line and the lines that use it, then the undefined and unused labels.
+    @Override
+    public String toString(){
+        StringBuilder builder = new StringBuilder();
+        for (int entry = 0; entry < size; entry++){
+            String definition = definitionLines[entry] == NOT_DEFINED ? "-" : String.valueOf(definitionLines[entry]);
+            builder.append(String.format("%-6s %6s ", SymbolTable.unpack(labels[entry]), definition));
+            for (int index = 0; index < referenceCounts[entry]; index++){
+                builder.append(' ').append(referenceLines[entry][index]);
+            }
+            builder.append(System.lineSeparator());
+        }
+        for (String label : getUndefinedLabels()){
+            builder.append("Undefined label: ").append(label).append(System.lineSeparator());
+        }
+        for (String label : getUnusedLabels()){
+            builder.append("Unused label: ").append(label).append(System.lineSeparator());
+        }
+        return builder.toString();
+    }
+}
@@ -1,11 +1,27 @@
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class ParseAssemblyCode {
+    private static final int NO_TOKEN = -1;
+    private static final String BLANK_LINE_MESSAGE = "Line is blank.";
+    private static final String UNPARSABLE_LINE_MESSAGE = "Line of code cannot be parsed";
+    static final String START_NOT_FIRST_MESSAGE = "START must be the first opcode called in assembly program.";
+    static final String MISSING_END_MESSAGE = "No END assembly directive found.";
+    // Compatibility entry point for callers that already have a Scanner.
+    // parse(Path) avoids Scanner and should be preferred for large files.
     public static ArrayList<ParsedLineOfCode> parse(Scanner fileReader) throws SICParsingError {
-            ArrayList<ParsedLineOfCode> parsedCodeList = new ArrayList<>();
-            int lineNumber = 0;
-            boolean startFound = false;
-            boolean endFound = false;
+        ArrayList<ParsedLineOfCode> parsedCodeList = new ArrayList<>();
+        AssemblyLineLexer lexer = new AssemblyLineLexer();
+        int lineNumber = 0;
+        boolean startFound = false;
+        boolean endFound = false;
+
+        try {
             while (fileReader.hasNextLine()){
                 // Populate unparsed line of code and line number attributes
                 String unparsedLineOfCode = fileReader.nextLine();
@@ -15,112 +31,380 @@ public class ParseAssemblyCode {
                 lineOfCode.setUnparsedLineOfCode(unparsedLineOfCode);
                 parsedCodeList.add(lineOfCode);
 
-                // Check for empty line in the Assembly Code File
-                if (unparsedLineOfCode.isBlank()){
-                    // Close assembly code file, print error, and exit program
-                    fileReader.close();
-                    throw new SICParsingError("Parser Error: Line " + lineOfCode.getLineNumber() + " is blank.");
-                }
+                parseLine(lineOfCode, unparsedLineOfCode, lexer);
 
-                // Check for comment indicator(".") in the line of code
-                // "." must be the first non-whitespace character
-                // in order for a line of code to be a comment.
-                if (unparsedLineOfCode.trim().indexOf(".") == 0){
-                    lineOfCode.setIsComment(true);
+                if (lineOfCode.getIsComment()){
                     continue;
                 }
 
-                // Populate remaining attributes: label, opcode, operand
-                // Handle label
-                // If the 0 index in the unparsed line of code is alphabetical,
-                // the first token will be the label
-                boolean hasLabel = false;
-                char firstCharacter = unparsedLineOfCode.charAt(0);
-                if (Character.isAlphabetic(firstCharacter)){
-                    hasLabel = true;
+                if (isEndOfProgram(lineOfCode, startFound)){
+                    endFound = true;
+                    break;
                 }
+                startFound = true;
+            }
+        }
 
-                // Handle Byte Character Strings,
-                // parse out expected tokens,
-                // and count the number of tokens.
-                String byteCharacterString = lineOfCode.get_byte_character_string(unparsedLineOfCode);
+        finally {
+            fileReader.close();
+        }
 
-                // Tokenize the unparsed line of code.
-                // "\\s+" will split the string on any whitespace character (space, tab, etc.)
-                ArrayList<String> tokenList = new ArrayList<>(Arrays.asList(unparsedLineOfCode.trim().split("\\s+")));
-                if (byteCharacterString != null){
-                    tokenList = lineOfCode.handleByteCharacterString(tokenList, byteCharacterString);
-                }
+        checkEndFound(endFound);
+        System.out.println("Parsing complete.");
 
-                // Handle opcode
-                // If the line of code has a label, then the second token is the opcode
-                // if the line of code doesn't have a label the first token is the opcode
-                try {
-                    if (hasLabel && tokenList.size() >= 3) {
-                        lineOfCode.setLabel(tokenList.get(0));
-                        lineOfCode.setOpcode(tokenList.get(1));
-                        if (!Objects.equals(lineOfCode.getOpcode(), "RSUB")
-                                && !Objects.equals(lineOfCode.getOpcode(), "END")
-                                && !Objects.equals(lineOfCode.getOpcode(), "XOS")) {
-                            //System.out.println("line number: " + lineOfCode.getLineNumber() + "\nopcode: " + lineOfCode.getOpcode());
-                            lineOfCode.setOperand(tokenList.get(2));
-                        }
-                    } else if (hasLabel && tokenList.size() >= 2) {
-                        lineOfCode.setLabel(tokenList.get(0));
-                        lineOfCode.setOpcode(tokenList.get(1));
-                    } else if (!hasLabel && tokenList.size() >= 2) {
-                        lineOfCode.setOpcode(tokenList.get(0));
-                        if (!Objects.equals(lineOfCode.getOpcode(), "RSUB")
-                                && !Objects.equals(lineOfCode.getOpcode(), "END")
-                                && !Objects.equals(lineOfCode.getOpcode(), "XOS")) {
-                            lineOfCode.setOperand(tokenList.get(1));
-                        }
-                    } else if (!hasLabel && tokenList.size() == 1) {
-                        lineOfCode.setLoneOpcode(tokenList.get(0));
-                    } else {
-                        throw new SICParsingError("Line of code cannot be parsed");
-                    }
-                }
+        return parsedCodeList;
+    }
 
-                catch (SICParsingError ex){
-                    fileReader.close();
+    public static ArrayList<ParsedLineOfCode> parse(Path assemblyCodeFile) throws SICParsingError {
+        return parse(assemblyCodeFile, (ParsedLineCache) null);
+    }
 
-                    throw new SICParsingError("Parser Error: " + ex.getMessage() + "\n" +
-                            "LINE " + lineOfCode.getLineNumber() + ": " + lineOfCode.getUnparsedLineOfCode());
-                }
+    // Same as parse(Path); lines parsed before are restored from lineCache
+    // when it is not null (see ParsedLineCache).
+    public static ArrayList<ParsedLineOfCode> parse(Path assemblyCodeFile, ParsedLineCache lineCache) throws SICParsingError {
+        ParseFileEvent event = new ParseFileEvent();
+        event.begin();
+        long byteCount = 0;
+        int lineCount = 0;
+        String errorMessage = null;
+
+        try {
+            AssemblySource source = AssemblySource.open(assemblyCodeFile);
+            byteCount = source.length();
+            ArrayList<ParsedLineOfCode> parsedCodeList = collect(source, lineCache);
+            System.out.println("Parsing complete.");
+            lineCount = parsedCodeList.size();
+            return parsedCodeList;
+        }
 
-                if (!startFound){
-                    if (lineOfCode.getOpcode().equals("START")){
-                        startFound = true;
-                    }
+        catch (IOException e){
+            errorMessage = "Assembly Code file could not be read: " + assemblyCodeFile;
+            throw new SICParsingError(errorMessage);
+        }
 
-                    else{
-                        fileReader.close();
+        catch (SICParsingError e){
+            errorMessage = e.getMessage();
+            throw e;
+        }
 
-                        throw new SICParsingError("Parser Error: START must be the first opcode called in assembly program.\n"
-                                                 + "LINE " + lineOfCode.getLineNumber() + ": " + lineOfCode.getUnparsedLineOfCode());
-                    }
-                }
+        finally {
+            event.commit(assemblyCodeFile, byteCount, lineCount, errorMessage);
+        }
+    }
 
-                if (lineOfCode.getOpcode().equals("END")){
-                    endFound = true;
-                    break;
-                }
-            }
+    public static ArrayList<ParsedLineOfCode> parse(FileChannel assemblyCodeChannel) throws SICParsingError {
+        try {
+            return parse(AssemblySource.open(assemblyCodeChannel));
+        }
 
-            fileReader.close();
+        catch (IOException e){
+            throw new SICParsingError("Assembly Code file could not be read.");
+        }
+    }
+
+    // This function parses an assembly code file that has been mapped
+    // (or read) into memory. Lines are found in the raw bytes and the
+    // parsed lines point back into the source instead of holding a String.
+    public static ArrayList<ParsedLineOfCode> parse(AssemblySource source) throws SICParsingError {
+        ArrayList<ParsedLineOfCode> parsedCodeList = collect(source);
+        System.out.println("Parsing complete.");
+        return parsedCodeList;
+    }
+
+    // Same as parse(AssemblySource) without the completion message,
+    // for callers that parse many files at once.
+    static ArrayList<ParsedLineOfCode> collect(AssemblySource source) throws SICParsingError {
+        return collect(source, null);
+    }
+
+    static ArrayList<ParsedLineOfCode> collect(AssemblySource source, ParsedLineCache lineCache) throws SICParsingError {
+        return collect(source, lineCache, null);
+    }
+
+    // Same as above; each line is also indexed in crossReference when it is not null,
+    // so the index is complete when parsing returns
+    static ArrayList<ParsedLineOfCode> collect(AssemblySource source, ParsedLineCache lineCache,
+                                               LabelCrossReference crossReference) throws SICParsingError {
+        ArrayList<ParsedLineOfCode> parsedCodeList = new ArrayList<>();
+        ParsedLineIterator lineIterator = new ParsedLineIterator(source, null, false, lineCache, crossReference);
+        ParsedLineOfCode lineOfCode;
+
+        while ((lineOfCode = lineIterator.nextLineOfCode()) != null){
+            parsedCodeList.add(lineOfCode);
+        }
+
+        return parsedCodeList;
+    }
+
+    // This function parses the whole file without stopping at the first problem.
+    // Every problem is recorded in diagnostics and parsing resumes at the next line,
+    // so one pass reports all of them. Only a file that can't be read throws.
+    // The returned list holds every line up to END; lines with a diagnostic
+    // are only populated up to the token that failed.
+    public static ArrayList<ParsedLineOfCode> parse(Path assemblyCodeFile, ParseDiagnostics diagnostics) throws SICParsingError {
+        ArrayList<ParsedLineOfCode> parsedCodeList = new ArrayList<>();
+        ParseFileEvent event = new ParseFileEvent();
+        event.begin();
+        AssemblySource source;
+
+        try {
+            source = AssemblySource.open(assemblyCodeFile);
+        }
+
+        catch (IOException e){
+            String errorMessage = "Assembly Code file could not be read: " + assemblyCodeFile;
+            event.commit(assemblyCodeFile, 0, 0, errorMessage);
+            throw new SICParsingError(errorMessage);
+        }
+
+        ParsedLineIterator lineIterator = new ParsedLineIterator(source, diagnostics);
+        ParsedLineOfCode lineOfCode;
+        while ((lineOfCode = lineIterator.nextLineOfCode()) != null){
+            parsedCodeList.add(lineOfCode);
+        }
+
+        event.commit(assemblyCodeFile, source.length(), parsedCodeList.size(),
+                diagnostics.isEmpty() ? null : diagnostics.format(0));
+        return parsedCodeList;
+    }
+
+    // This function is a structure-only parse: labels, opcodes and the program
+    // rules are checked as in parse(Path), but each operand is only located.
+    // It is validated the first time getOperand() or validate() is called on its
+    // line, or for all lines at once by validateAll(). Outline views and symbol
+    // collection that never look at operands skip their validation entirely.
+    public static ArrayList<ParsedLineOfCode> scan(Path assemblyCodeFile) throws SICParsingError {
+        ArrayList<ParsedLineOfCode> parsedCodeList = new ArrayList<>();
+        ParsedLineIterator lineIterator;
+        try {
+            lineIterator = new ParsedLineIterator(AssemblySource.open(assemblyCodeFile), null, true);
+        }
+
+        catch (IOException e){
+            throw new SICParsingError("Assembly Code file could not be read: " + assemblyCodeFile);
+        }
+
+        ParsedLineOfCode lineOfCode;
+        while ((lineOfCode = lineIterator.nextLineOfCode()) != null){
+            parsedCodeList.add(lineOfCode);
+        }
+        return parsedCodeList;
+    }
+
+    // This function validates every operand scan() left pending, in parallel.
+    // If any is invalid, the error of the first invalid line is thrown.
+    // Once it returns, the lines hold what parse(Path) would have returned.
+    public static void validateAll(List<ParsedLineOfCode> parsedCodeList) throws SICParsingError {
+        OptionalInt firstInvalidLine = IntStream.range(0, parsedCodeList.size()).parallel()
+                .filter(index -> !isValid(parsedCodeList.get(index)))
+                .findFirst();
+        if (firstInvalidLine.isPresent()){
+            parsedCodeList.get(firstInvalidLine.getAsInt()).validate();
+        }
+    }
+
+    private static boolean isValid(ParsedLineOfCode lineOfCode){
+        try {
+            lineOfCode.validate();
+            return true;
+        }
+
+        catch (SICParsingError _){
+            return false;
+        }
+    }
+
+    // This function returns a lazy iterator over the parsed lines of the file.
+    // Each line is read and checked when it is pulled. Errors surface as
+    // UncheckedSICParsingError, and a missing END is reported once the
+    // iterator is exhausted.
+    public static ParsedLineIterator iterate(Path assemblyCodeFile) throws SICParsingError {
+        try {
+            return new ParsedLineIterator(AssemblySource.open(assemblyCodeFile));
+        }
+
+        catch (IOException e){
+            throw new SICParsingError("Assembly Code file could not be read: " + assemblyCodeFile);
+        }
+    }
+
+    // Stream form of iterate(Path). The stream is sequential and ordered.
+    public static Stream<ParsedLineOfCode> stream(Path assemblyCodeFile) throws SICParsingError {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterate(assemblyCodeFile),
+                Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    // This function populates the label, opcode and operand of a single line of code.
+    // It only looks at the line itself; rules that depend on the order
+    // of lines (START first, END last) are checked by the caller.
+    static void parseLine(ParsedLineOfCode lineOfCode, CharSequence unparsedLineOfCode, AssemblyLineLexer lexer) throws SICParsingError {
+        parseLine(lineOfCode, unparsedLineOfCode, lexer, null);
+    }
+
+    // Same as parseLine above, except that when diagnostics is not null a problem
+    // is recorded there instead of thrown, and the function returns false.
+    static boolean parseLine(ParsedLineOfCode lineOfCode, CharSequence unparsedLineOfCode, AssemblyLineLexer lexer,
+                             ParseDiagnostics diagnostics) throws SICParsingError {
+        return parseLine(lineOfCode, unparsedLineOfCode, lexer, diagnostics, false);
+    }
+
+    // Same as parseLine above; when isStructureOnly is true the operand is only
+    // located, and validated later by ParsedLineOfCode.validate().
+    static boolean parseLine(ParsedLineOfCode lineOfCode, CharSequence unparsedLineOfCode, AssemblyLineLexer lexer,
+                             ParseDiagnostics diagnostics, boolean isStructureOnly) throws SICParsingError {
+        ParseMetrics.increment(ParseMetrics.Counter.LINES);
 
-            if (endFound){
-              System.out.println("Parsing complete.");
+        // Check for empty line in the Assembly Code File
+        if (isBlank(unparsedLineOfCode)){
+            if (diagnostics != null){
+                diagnostics.add(lineOfCode.getLineNumber(), 0, unparsedLineOfCode.length(),
+                        ParseErrorCode.BLANK_LINE, BLANK_LINE_MESSAGE);
+                return false;
             }
+            ParseMetrics.increment(ParseMetrics.Counter.ERRORS);
+            throw lineError(lineOfCode, ParseErrorCode.BLANK_LINE, BLANK_LINE_MESSAGE);
+        }
+
+        // Check for comment indicator(".") in the line of code
+        // "." must be the first non-whitespace character
+        // in order for a line of code to be a comment.
+        int firstCharacterIndex = 0;
+        while (firstCharacterIndex < unparsedLineOfCode.length() && unparsedLineOfCode.charAt(firstCharacterIndex) <= ' '){
+            firstCharacterIndex++;
+        }
+        if (firstCharacterIndex < unparsedLineOfCode.length() && unparsedLineOfCode.charAt(firstCharacterIndex) == '.'){
+            lineOfCode.setIsComment(true);
+            ParseMetrics.increment(ParseMetrics.Counter.COMMENTS);
+            return true;
+        }
+
+        // Populate remaining attributes: label, opcode, operand
+        // Handle label
+        // If the 0 index in the unparsed line of code is alphabetical,
+        // the first token will be the label
+        boolean hasLabel = false;
+        char firstCharacter = unparsedLineOfCode.charAt(0);
+        if (Character.isAlphabetic(firstCharacter)){
+            hasLabel = true;
+        }
+
+        // Tokenize the unparsed line of code in a single pass.
+        // BYTE character strings (C'...') are kept as one token even when they contain spaces.
+        long startTime = ParseMetrics.start();
+        int tokenCount = lexer.tokenize(unparsedLineOfCode);
+        ParseMetrics.stop(ParseMetrics.Timer.TOKENIZE, startTime);
 
-            else{
-                fileReader.close();
+        // The token being validated, so a diagnostic can point at it
+        int token = NO_TOKEN;
+        ParseErrorCode errorCode = ParseErrorCode.UNPARSABLE_LINE;
 
-                throw new SICParsingError("Parser Error: No END assembly directive found.");
+        // Handle opcode
+        // If the line of code has a label, then the second token is the opcode
+        // if the line of code doesn't have a label the first token is the opcode
+        try {
+            if (hasLabel && tokenCount >= 2) {
+                token = 0;
+                errorCode = ParseErrorCode.INVALID_LABEL;
+                lineOfCode.setLabel(lexer.getToken(unparsedLineOfCode, 0));
+                token = 1;
+                errorCode = ParseErrorCode.INVALID_OPCODE;
+                lineOfCode.setOpcode(unparsedLineOfCode, lexer.getTokenStart(1), lexer.getTokenEnd(1));
+                if (tokenCount >= 3 && lineOfCode.getSICOpcode().takesOperand()) {
+                    token = 2;
+                    errorCode = ParseErrorCode.INVALID_OPERAND;
+                    setOperand(lineOfCode, unparsedLineOfCode, lexer, 2, isStructureOnly);
+                }
+            } else if (!hasLabel && tokenCount >= 2) {
+                token = 0;
+                errorCode = ParseErrorCode.INVALID_OPCODE;
+                lineOfCode.setOpcode(unparsedLineOfCode, lexer.getTokenStart(0), lexer.getTokenEnd(0));
+                if (lineOfCode.getSICOpcode().takesOperand()) {
+                    token = 1;
+                    errorCode = ParseErrorCode.INVALID_OPERAND;
+                    setOperand(lineOfCode, unparsedLineOfCode, lexer, 1, isStructureOnly);
+                }
+            } else if (!hasLabel && tokenCount == 1) {
+                token = 0;
+                errorCode = ParseErrorCode.INVALID_OPCODE;
+                lineOfCode.setLoneOpcode(unparsedLineOfCode, lexer.getTokenStart(0), lexer.getTokenEnd(0));
+            } else {
+                throw new SICParsingError(UNPARSABLE_LINE_MESSAGE, false);
+            }
+        }
+
+        catch (SICParsingError ex){
+            if (diagnostics != null){
+                int startColumn = token == NO_TOKEN ? 0 : lexer.getTokenStart(token);
+                int endColumn = token == NO_TOKEN ? unparsedLineOfCode.length() : lexer.getTokenEnd(token);
+                diagnostics.add(lineOfCode.getLineNumber(), startColumn, endColumn, errorCode, ex.getMessage());
+                return false;
             }
 
-            return parsedCodeList;
+            ParseMetrics.increment(ParseMetrics.Counter.ERRORS);
+            throw lineError(lineOfCode, errorCode, ex.getMessage());
+        }
+
+        return true;
+    }
+
+    // Same as parseLine above, going through lineCache when it is not null.
+    // A structure-only parse doesn't use the cache, whose entries are fully validated lines.
+    static boolean parseLine(ParsedLineOfCode lineOfCode, CharSequence unparsedLineOfCode, AssemblyLineLexer lexer,
+                             ParseDiagnostics diagnostics, boolean isStructureOnly, ParsedLineCache lineCache)
+            throws SICParsingError {
+        if (lineCache == null || isStructureOnly){
+            return parseLine(lineOfCode, unparsedLineOfCode, lexer, diagnostics, isStructureOnly);
+        }
+        return lineCache.parseLine(lineOfCode, unparsedLineOfCode, lexer, diagnostics);
+    }
+
+    // The error parseLine throws for a problem it would otherwise add to diagnostics.
+    // It isn't counted in ParseMetrics; the caller that throws it counts it.
+    static SICParsingError lineError(ParsedLineOfCode lineOfCode, ParseErrorCode errorCode, String message){
+        if (errorCode == ParseErrorCode.BLANK_LINE){
+            return new SICParsingError("Parser Error: Line " + lineOfCode.getLineNumber() + " is blank.");
+        }
+        return new SICParsingError("Parser Error: " + message + "\n" +
+                "LINE " + lineOfCode.getLineNumber() + ": " + lineOfCode.getUnparsedLineOfCode());
+    }
+
+    private static void setOperand(ParsedLineOfCode lineOfCode, CharSequence unparsedLineOfCode, AssemblyLineLexer lexer,
+                                   int token, boolean isStructureOnly) throws SICParsingError {
+        if (isStructureOnly){
+            lineOfCode.setPendingOperand(unparsedLineOfCode, lexer.getTokenStart(token), lexer.getTokenEnd(token));
+        }
+        else{
+            lineOfCode.setOperand(lexer.getToken(unparsedLineOfCode, token));
+        }
+    }
+
+    // This function enforces START as the first opcode in the program
+    // and returns true once the END assembly directive is reached.
+    static boolean isEndOfProgram(ParsedLineOfCode lineOfCode, boolean startFound) throws SICParsingError {
+        if (!startFound && lineOfCode.getSICOpcode() != SICOpcode.START){
+            ParseMetrics.increment(ParseMetrics.Counter.ERRORS);
+            throw new SICParsingError("Parser Error: " + START_NOT_FIRST_MESSAGE + "\n"
+                                     + "LINE " + lineOfCode.getLineNumber() + ": " + lineOfCode.getUnparsedLineOfCode());
+        }
+
+        return lineOfCode.getSICOpcode() == SICOpcode.END;
+    }
+
+    static void checkEndFound(boolean endFound) throws SICParsingError {
+        if (!endFound){
+            ParseMetrics.increment(ParseMetrics.Counter.ERRORS);
+            throw new SICParsingError("Parser Error: " + MISSING_END_MESSAGE);
+        }
+    }
+
+    // Same test as String.isBlank() without converting the line to a String
+    static boolean isBlank(CharSequence lineOfCode){
+        for (int index = 0; index < lineOfCode.length(); index++){
+            if (!Character.isWhitespace(lineOfCode.charAt(index))){
+                return false;
+            }
+        }
+        return true;
     }
 
     /*
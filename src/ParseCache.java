@@ -0,0 +1,402 @@
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+// This class caches parse results on disk, keyed by a SHA-256 hash of the file contents.
+// A file that has been parsed before is not tokenized or validated again: its result,
+// or its parse error, is read back from a small binary cache file through a memory map.
+// Cache files hold only what the parse added to the source (flags, opcode, label and
+// operand of each line); the raw lines are split again from the source itself.
+//
+// The cache directory can be shared by several parser processes:
+//    1.) Entries are written to a temporary file and moved into place atomically,
+//        so a reader never sees a partly written entry.
+//    2.) Reading an entry updates its modification time, which is used as the
+//        last-used time for LRU eviction. An entry touched within the last
+//        TOUCH_INTERVAL_MILLIS isn't touched again, so most hits don't write.
+//    3.) Eviction runs under a file lock, so only one process deletes at a time.
+//    4.) Each cache keeps a running size of the directory, seeded by one scan when it
+//        is created and grown by each entry it stores. The directory is only listed
+//        again once that size passes maximumSize; eviction then deletes entries down
+//        to LOW_WATER_PERCENT of maximumSize, and the scan corrects the running size
+//        for entries written or deleted by other processes.
+// An entry that is missing, unreadable or corrupt is treated as a miss.
+//
+// Entry format (big endian):
+//    int magic, int version, int source length, byte status
+//    status PARSED: int line count, then for each line:
+//        byte flags, byte opcode (ordinal or -1),
+//        [byte length, label bytes] if FLAG_LABEL,
+//        [short length, operand bytes] if FLAG_OPERAND,
+//        [int operand value] if FLAG_OPERAND_VALUE
+//    status ERROR: int length, error message bytes
+public class ParseCache {
+    public static final long DEFAULT_MAXIMUM_SIZE = 256L * 1024 * 1024;
+    private static final int MAGIC = 0x53494350;
+    private static final int VERSION = 2;
+    private static final byte STATUS_PARSED = 0;
+    private static final byte STATUS_ERROR = 1;
+    private static final int FLAG_COMMENT = 1;
+    private static final int FLAG_INDEXED = 2;
+    private static final int FLAG_LABEL = 4;
+    private static final int FLAG_OPERAND = 8;
+    private static final int FLAG_OPERAND_VALUE = 16;
+    private static final byte NO_OPCODE = -1;
+    private static final String CACHE_FILE_EXTENSION = ".sicp";
+    private static final String TEMPORARY_FILE_EXTENSION = ".tmp";
+    private static final String LOCK_FILE_NAME = "cache.lock";
+    // Temporary files older than this were left behind by a process that died
+    private static final long ABANDONED_TEMPORARY_FILE_MILLIS = 60 * 60 * 1000;
+    private static final long TOUCH_INTERVAL_MILLIS = 60 * 1000;
+    private static final int LOW_WATER_PERCENT = 75;
+    private static final long UNMEASURED = Long.MAX_VALUE;
+    private static final SICOpcode[] OPCODES = SICOpcode.values();
+    private static final Object EVICTION_LOCK = new Object();
+    private static final ThreadLocal<MessageDigest> DIGEST = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        }
+
+        catch (NoSuchAlgorithmException e){
+            throw new IllegalStateException(e);
+        }
+    });
+    private final Path directory;
+    private final long maximumSize;
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    // The approximate size of the cache files in the directory; UNMEASURED until
+    // the constructor's first scan
+    private final AtomicLong cacheSize = new AtomicLong(UNMEASURED);
+
+    public ParseCache(Path directory) throws IOException {
+        this(directory, DEFAULT_MAXIMUM_SIZE);
+    }
+
+    public ParseCache(Path directory, long maximumSize) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.maximumSize = maximumSize;
+        evict();
+    }
+
+    // Same as ParseAssemblyCode.parse(Path), answered from the cache when possible
+    public ArrayList<ParsedLineOfCode> parse(Path assemblyCodeFile) throws SICParsingError {
+        AssemblySource source;
+        try {
+            source = AssemblySource.open(assemblyCodeFile);
+        }
+
+        catch (IOException e){
+            throw new SICParsingError("Assembly Code file could not be read: " + assemblyCodeFile);
+        }
+
+        ArrayList<ParsedLineOfCode> parsedCodeList = collect(source);
+        System.out.println("Parsing complete.");
+
+        return parsedCodeList;
+    }
+
+    // Same as ParseAssemblyCode.collect, answered from the cache when possible.
+    // A parse error is cached too, and thrown again on a hit.
+    ArrayList<ParsedLineOfCode> collect(AssemblySource source) throws SICParsingError {
+        return collect(source, null);
+    }
+
+    // Same as above; a file that misses is parsed through lineCache when it is not null
+    ArrayList<ParsedLineOfCode> collect(AssemblySource source, ParsedLineCache lineCache) throws SICParsingError {
+        Path cacheFile = directory.resolve(hash(source) + CACHE_FILE_EXTENSION);
+
+        ArrayList<ParsedLineOfCode> parsedCodeList;
+        try {
+            parsedCodeList = read(cacheFile, source);
+        }
+
+        catch (SICParsingError e){
+            // The cached result was a parse error
+            hitCount.incrementAndGet();
+            throw e;
+        }
+
+        if (parsedCodeList != null){
+            hitCount.incrementAndGet();
+            return parsedCodeList;
+        }
+        missCount.incrementAndGet();
+
+        try {
+            parsedCodeList = ParseAssemblyCode.collect(source.slice(0, source.length()), lineCache);
+        }
+
+        catch (SICParsingError e){
+            store(cacheFile, source, null, e.getMessage());
+            throw e;
+        }
+
+        store(cacheFile, source, parsedCodeList, null);
+        return parsedCodeList;
+    }
+
+    private static String hash(AssemblySource source){
+        MessageDigest digest = DIGEST.get();
+        digest.update(source.bytes(0, source.length()));
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    // Returns the cached lines, or null on a miss. A cached error is thrown.
+    private ArrayList<ParsedLineOfCode> read(Path cacheFile, AssemblySource source) throws SICParsingError {
+        ByteBuffer entry;
+        try (FileChannel channel = FileChannel.open(cacheFile, StandardOpenOption.READ)){
+            entry = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        catch (IOException _){
+            return null;
+        }
+
+        try {
+            if (entry.getInt() != MAGIC || entry.getInt() != VERSION || entry.getInt() != source.length()){
+                return null;
+            }
+
+            byte status = entry.get();
+            if (status == STATUS_ERROR){
+                String errorMessage = getString(entry, entry.getInt());
+                touch(cacheFile);
+                ParseMetrics.increment(ParseMetrics.Counter.ERRORS);
+                throw new SICParsingError(errorMessage);
+            }
+            if (status != STATUS_PARSED){
+                return null;
+            }
+
+            int lineCount = entry.getInt();
+            ArrayList<ParsedLineOfCode> parsedCodeList = new ArrayList<>(lineCount);
+            AssemblySource lines = source.slice(0, source.length());
+            for (int index = 0; index < lineCount; index++){
+                if (!lines.nextLine()){
+                    return null;
+                }
+
+                int flags = entry.get();
+                byte opcode = entry.get();
+                String label = (flags & FLAG_LABEL) != 0 ? getString(entry, entry.get() & 0xFF) : null;
+                String operand = (flags & FLAG_OPERAND) != 0 ? getString(entry, entry.getShort() & 0xFFFF) : null;
+                int operandValue = (flags & FLAG_OPERAND_VALUE) != 0 ? entry.getInt() : ParsedLineOfCode.NO_OPERAND_VALUE;
+
+                ParsedLineOfCode lineOfCode = new ParsedLineOfCode();
+                lineOfCode.setLineNumber(index + 1);
+                lineOfCode.setUnparsedLineOfCode(lines, lines.lineStart(), lines.lineEnd());
+                lineOfCode.restore(label, opcode == NO_OPCODE ? null : OPCODES[opcode], operand, operandValue,
+                        (flags & FLAG_COMMENT) != 0, (flags & FLAG_INDEXED) != 0);
+                parsedCodeList.add(lineOfCode);
+            }
+
+            touch(cacheFile);
+            return parsedCodeList;
+        }
+
+        catch (BufferUnderflowException | IndexOutOfBoundsException _){
+            // Corrupt entry; it is replaced once the file has been parsed again
+            return null;
+        }
+    }
+
+    private static String getString(ByteBuffer entry, int length){
+        byte[] text = new byte[length];
+        entry.get(text);
+        return new String(text, StandardCharsets.UTF_8);
+    }
+
+    // Marks an entry as recently used for LRU eviction, unless it already was
+    // within TOUCH_INTERVAL_MILLIS
+    private static void touch(Path cacheFile){
+        try {
+            long now = System.currentTimeMillis();
+            if (now - Files.getLastModifiedTime(cacheFile).toMillis() >= TOUCH_INTERVAL_MILLIS){
+                Files.setLastModifiedTime(cacheFile, FileTime.fromMillis(now));
+            }
+        }
+
+        catch (IOException _){
+            // Evicted by another process in the meantime
+        }
+    }
+
+    // Writes an entry for either the parsed lines or the error message.
+    // The cache only speeds parsing up, so a failure to write is ignored.
+    private void store(Path cacheFile, AssemblySource source, List<ParsedLineOfCode> parsedCodeList, String errorMessage){
+        Path temporaryFile = null;
+        try {
+            long entrySize;
+            temporaryFile = Files.createTempFile(directory, null, TEMPORARY_FILE_EXTENSION);
+            try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporaryFile)))){
+                output.writeInt(MAGIC);
+                output.writeInt(VERSION);
+                output.writeInt(source.length());
+
+                if (parsedCodeList == null){
+                    byte[] message = errorMessage.getBytes(StandardCharsets.UTF_8);
+                    output.writeByte(STATUS_ERROR);
+                    output.writeInt(message.length);
+                    output.write(message);
+                }
+                else{
+                    output.writeByte(STATUS_PARSED);
+                    output.writeInt(parsedCodeList.size());
+                    for (ParsedLineOfCode lineOfCode : parsedCodeList){
+                        writeLine(output, lineOfCode);
+                    }
+                }
+                output.flush();
+                entrySize = output.size();
+            }
+
+            try {
+                Files.move(temporaryFile, cacheFile, StandardCopyOption.ATOMIC_MOVE);
+            }
+
+            catch (AtomicMoveNotSupportedException _){
+                Files.move(temporaryFile, cacheFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+
+            // An entry that replaced one is counted twice until the next scan
+            if (cacheSize.addAndGet(entrySize) > maximumSize){
+                evict();
+            }
+        }
+
+        catch (IOException _){
+            if (temporaryFile != null){
+                try {
+                    Files.deleteIfExists(temporaryFile);
+                }
+
+                catch (IOException _){
+                    // Removed later as an abandoned temporary file
+                }
+            }
+        }
+    }
+
+    private static void writeLine(DataOutputStream output, ParsedLineOfCode lineOfCode) throws IOException {
+        String label = lineOfCode.getLabel();
+        String operand = lineOfCode.getOperand();
+        int operandValue = lineOfCode.getOperandValue();
+        int flags = (lineOfCode.getIsComment() ? FLAG_COMMENT : 0) | (lineOfCode.getIsIndexed() ? FLAG_INDEXED : 0)
+                | (label != null ? FLAG_LABEL : 0) | (operand != null ? FLAG_OPERAND : 0)
+                | (operandValue != ParsedLineOfCode.NO_OPERAND_VALUE ? FLAG_OPERAND_VALUE : 0);
+
+        output.writeByte(flags);
+        output.writeByte(lineOfCode.getSICOpcode() == null ? NO_OPCODE : lineOfCode.getSICOpcode().ordinal());
+        if (label != null){
+            byte[] text = label.getBytes(StandardCharsets.UTF_8);
+            output.writeByte(text.length);
+            output.write(text);
+        }
+        if (operand != null){
+            byte[] text = operand.getBytes(StandardCharsets.UTF_8);
+            output.writeShort(text.length);
+            output.write(text);
+        }
+        if (operandValue != ParsedLineOfCode.NO_OPERAND_VALUE){
+            output.writeInt(operandValue);
+        }
+    }
+
+    // This function lists the directory to measure the cache, and when it is over its
+    // maximum size deletes the least recently used entries until it is down to
+    // LOW_WATER_PERCENT of it. The file lock keeps other processes from evicting at
+    // the same time; the JVM-wide lock does the same for other threads, which FileLock
+    // doesn't cover. A thread that waited for the lock returns without listing when
+    // the thread before it already brought the size down.
+    private void evict() throws IOException {
+        synchronized (EVICTION_LOCK){
+            if (cacheSize.get() <= maximumSize){
+                return;
+            }
+            try (FileChannel lockChannel = FileChannel.open(directory.resolve(LOCK_FILE_NAME),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                 FileLock _ = lockChannel.lock()){
+                List<Path> entries = new ArrayList<>();
+                List<BasicFileAttributes> entryAttributes = new ArrayList<>();
+                long totalSize = 0;
+                long now = System.currentTimeMillis();
+
+                try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)){
+                    for (Path file : files){
+                        String fileName = file.getFileName().toString();
+                        try {
+                            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                            if (fileName.endsWith(CACHE_FILE_EXTENSION)){
+                                entries.add(file);
+                                entryAttributes.add(attributes);
+                                totalSize += attributes.size();
+                            }
+                            else if (fileName.endsWith(TEMPORARY_FILE_EXTENSION)
+                                    && now - attributes.lastModifiedTime().toMillis() > ABANDONED_TEMPORARY_FILE_MILLIS){
+                                Files.deleteIfExists(file);
+                            }
+                        }
+
+                        catch (IOException _){
+                            // Deleted by another process while listing
+                        }
+                    }
+                }
+
+                if (totalSize <= maximumSize){
+                    cacheSize.set(totalSize);
+                    return;
+                }
+
+                Integer[] order = new Integer[entries.size()];
+                for (int index = 0; index < order.length; index++){
+                    order[index] = index;
+                }
+                Arrays.sort(order, (first, second) -> entryAttributes.get(first).lastModifiedTime()
+                        .compareTo(entryAttributes.get(second).lastModifiedTime()));
+
+                long lowWaterSize = maximumSize - maximumSize / 100 * (100 - LOW_WATER_PERCENT);
+                for (int index = 0; index < order.length && totalSize > lowWaterSize; index++){
+                    try {
+                        Files.deleteIfExists(entries.get(order[index]));
+                        totalSize -= entryAttributes.get(order[index]).size();
+                    }
+
+                    catch (IOException _){
+                        // Still open in another process on a platform that forbids deleting it
+                    }
+                }
+                cacheSize.set(totalSize);
+            }
+        }
+    }
+
+    public long getHitCount(){
+        return hitCount.get();
+    }
+
+    public long getMissCount(){
+        return missCount.get();
+    }
+}
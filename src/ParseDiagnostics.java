@@ -0,0 +1,96 @@
+import java.util.Arrays;
+
+// This class is a compact list of parse problems, stored in parallel arrays.
+// Each diagnostic has a line number, a column span within the line (start
+// inclusive, end exclusive, counted from 0), an error code and a message.
+// Messages are the fixed validation texts, so recording a diagnostic
+// creates no objects beyond occasionally growing the arrays.
+public class ParseDiagnostics {
+    private static final int INITIAL_CAPACITY = 16;
+    private static final ParseErrorCode[] ERROR_CODES = ParseErrorCode.values();
+    private int size = 0;
+    private int[] lineNumbers = new int[INITIAL_CAPACITY];
+    private int[] startColumns = new int[INITIAL_CAPACITY];
+    private int[] endColumns = new int[INITIAL_CAPACITY];
+    private byte[] errorCodes = new byte[INITIAL_CAPACITY];
+    private String[] messages = new String[INITIAL_CAPACITY];
+    private final boolean isCounted;
+
+    public ParseDiagnostics(){
+        this(true);
+    }
+
+    // A scratch list whose problems are reported again elsewhere is created
+    // with isCounted false, so ParseMetrics counts each problem once
+    ParseDiagnostics(boolean isCounted){
+        this.isCounted = isCounted;
+    }
+
+    public void add(int lineNumber, int startColumn, int endColumn, ParseErrorCode errorCode, String message){
+        if (size == lineNumbers.length){
+            int newCapacity = size * 2;
+            lineNumbers = Arrays.copyOf(lineNumbers, newCapacity);
+            startColumns = Arrays.copyOf(startColumns, newCapacity);
+            endColumns = Arrays.copyOf(endColumns, newCapacity);
+            errorCodes = Arrays.copyOf(errorCodes, newCapacity);
+            messages = Arrays.copyOf(messages, newCapacity);
+        }
+        lineNumbers[size] = lineNumber;
+        startColumns[size] = startColumn;
+        endColumns[size] = endColumn;
+        errorCodes[size] = (byte) errorCode.ordinal();
+        messages[size] = message;
+        size++;
+        if (isCounted){
+            ParseMetrics.increment(ParseMetrics.Counter.ERRORS);
+        }
+    }
+
+    public int size(){
+        return size;
+    }
+
+    public boolean isEmpty(){
+        return size == 0;
+    }
+
+    public void clear(){
+        Arrays.fill(messages, 0, size, null);
+        size = 0;
+    }
+
+    public int getLineNumber(int index){
+        return lineNumbers[index];
+    }
+
+    public int getStartColumn(int index){
+        return startColumns[index];
+    }
+
+    public int getEndColumn(int index){
+        return endColumns[index];
+    }
+
+    public ParseErrorCode getErrorCode(int index){
+        return ERROR_CODES[errorCodes[index]];
+    }
+
+    public String getMessage(int index){
+        return messages[index];
+    }
+
+    // Formats one diagnostic as "LINE n:start-end CODE: message"
+    public String format(int index){
+        return "LINE " + lineNumbers[index] + ":" + startColumns[index] + "-" + endColumns[index]
+                + " " + getErrorCode(index) + ": " + messages[index];
+    }
+
+    @Override
+    public String toString(){
+        StringBuilder builder = new StringBuilder();
+        for (int index = 0; index < size; index++){
+            builder.append(format(index)).append(System.lineSeparator());
+        }
+        return builder.toString();
+    }
+}
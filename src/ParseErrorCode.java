@@ -0,0 +1,10 @@
+// This enum identifies the kind of problem a parse diagnostic reports
+public enum ParseErrorCode {
+    BLANK_LINE,
+    UNPARSABLE_LINE,
+    INVALID_LABEL,
+    INVALID_OPCODE,
+    INVALID_OPERAND,
+    START_NOT_FIRST,
+    MISSING_END
+}
@@ -0,0 +1,47 @@
+import java.nio.file.Path;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+// JDK Flight Recorder event for one parsed assembly code file.
+// It is recorded with "java -XX:StartFlightRecording ..." independently of
+// ParseMetrics, and costs next to nothing when no recording is running.
+@Name("sicparser.ParseFile")
+@Label("Parse Assembly Code File")
+@Category("SIC Parser")
+@Description("Parsing of one assembly code file")
+public class ParseFileEvent extends Event {
+    @Label("Path")
+    String path;
+
+    @Label("Size")
+    @DataAmount
+    long byteCount;
+
+    @Label("Lines")
+    int lineCount;
+
+    @Label("Passed")
+    boolean passed;
+
+    @Label("Error")
+    String errorMessage;
+
+    // Ends the event, commits it if it is being recorded, and counts the file in ParseMetrics.
+    // errorMessage is null if the file parsed.
+    void commit(Path assemblyCodeFile, long byteCount, int lineCount, String errorMessage){
+        ParseMetrics.increment(ParseMetrics.Counter.FILES);
+        end();
+        if (shouldCommit()){
+            this.path = assemblyCodeFile.toString();
+            this.byteCount = byteCount;
+            this.lineCount = lineCount;
+            this.passed = errorMessage == null;
+            this.errorMessage = errorMessage;
+            commit();
+        }
+    }
+}
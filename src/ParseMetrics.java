@@ -0,0 +1,147 @@
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+
+// This class collects counters and phase timers from the parser.
+// It is switched on with -Dsicparser.metrics=true (or the --stats flag).
+// ENABLED is a static final constant, so when it is false the JIT removes
+// every check and timer call; the parser pays nothing for them.
+// LongAdder keeps updates from many parsing threads from contending.
+//
+// Timers are used in pairs around a phase:
+//    long startTime = ParseMetrics.start();
+//    ...
+//    ParseMetrics.stop(ParseMetrics.Timer.TOKENIZE, startTime);
+public final class ParseMetrics {
+    public static final String ENABLED_PROPERTY = "sicparser.metrics";
+    public static final boolean ENABLED = Boolean.getBoolean(ENABLED_PROPERTY);
+    private static final Counter[] COUNTERS = Counter.values();
+    private static final Timer[] TIMERS = Timer.values();
+    private static final LongAdder[] COUNTS = newAdders(COUNTERS.length);
+    private static final LongAdder[] TIMER_COUNTS = newAdders(TIMERS.length);
+    private static final LongAdder[] TIMER_NANOS = newAdders(TIMERS.length);
+
+    public enum Counter {
+        FILES,
+        LINES,
+        COMMENTS,
+        BYTES,
+        ERRORS
+    }
+
+    public enum Timer {
+        READ,
+        TOKENIZE,
+        OPCODE_LOOKUP,
+        VALIDATE_LABEL,
+        VALIDATE_START_OPERAND,
+        VALIDATE_BYTE_OPERAND,
+        VALIDATE_WORD_OPERAND,
+        VALIDATE_RESB_OPERAND,
+        VALIDATE_RESW_OPERAND,
+        VALIDATE_INSTRUCTION_OPERAND,
+        // Capturing the stack trace of a SICParsingError, the expensive part of creating one
+        ERROR_CREATION
+    }
+
+    private ParseMetrics(){
+    }
+
+    private static LongAdder[] newAdders(int count){
+        LongAdder[] adders = new LongAdder[count];
+        for (int index = 0; index < count; index++){
+            adders[index] = new LongAdder();
+        }
+        return adders;
+    }
+
+    public static void increment(Counter counter){
+        if (ENABLED){
+            COUNTS[counter.ordinal()].increment();
+        }
+    }
+
+    public static void add(Counter counter, long amount){
+        if (ENABLED){
+            COUNTS[counter.ordinal()].add(amount);
+        }
+    }
+
+    public static long start(){
+        return ENABLED ? System.nanoTime() : 0;
+    }
+
+    public static void stop(Timer timer, long startTime){
+        if (ENABLED){
+            TIMER_NANOS[timer.ordinal()].add(System.nanoTime() - startTime);
+            TIMER_COUNTS[timer.ordinal()].increment();
+        }
+    }
+
+    // The timer for validating the operand of an opcode
+    public static Timer operandTimer(SICOpcode opcode){
+        if (opcode == null){
+            return Timer.VALIDATE_INSTRUCTION_OPERAND;
+        }
+        switch (opcode){
+            case START:
+                return Timer.VALIDATE_START_OPERAND;
+            case BYTE:
+                return Timer.VALIDATE_BYTE_OPERAND;
+            case WORD:
+                return Timer.VALIDATE_WORD_OPERAND;
+            case RESB:
+                return Timer.VALIDATE_RESB_OPERAND;
+            case RESW:
+                return Timer.VALIDATE_RESW_OPERAND;
+            default:
+                return Timer.VALIDATE_INSTRUCTION_OPERAND;
+        }
+    }
+
+    public static long getCount(Counter counter){
+        return COUNTS[counter.ordinal()].sum();
+    }
+
+    // The number of times the timer was stopped
+    public static long getTimerCount(Timer timer){
+        return TIMER_COUNTS[timer.ordinal()].sum();
+    }
+
+    public static long getTimerNanos(Timer timer){
+        return TIMER_NANOS[timer.ordinal()].sum();
+    }
+
+    public static void reset(){
+        for (LongAdder adder : COUNTS){
+            adder.reset();
+        }
+        for (int index = 0; index < TIMERS.length; index++){
+            TIMER_COUNTS[index].reset();
+            TIMER_NANOS[index].reset();
+        }
+    }
+
+    // This function formats every counter, and every timer that ran, as a table
+    public static String report(){
+        StringBuilder builder = new StringBuilder();
+        if (!ENABLED){
+            return "Parse metrics are disabled. Run with -D" + ENABLED_PROPERTY + "=true or --stats.\n";
+        }
+
+        for (Counter counter : COUNTERS){
+            builder.append(String.format(Locale.ROOT, "%-30s %14d%n", counter, getCount(counter)));
+        }
+
+        builder.append(String.format(Locale.ROOT, "%-30s %14s %14s %14s%n", "Timer", "count", "total ms", "avg ns"));
+        for (Timer timer : TIMERS){
+            long count = getTimerCount(timer);
+            if (count == 0){
+                continue;
+            }
+            long nanos = getTimerNanos(timer);
+            builder.append(String.format(Locale.ROOT, "%-30s %14d %14.3f %14.1f%n", timer, count,
+                    nanos / 1e6, nanos / (double) count));
+        }
+        return builder.toString();
+    }
+}
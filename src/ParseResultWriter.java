@@ -0,0 +1,193 @@
+import java.io.Flushable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.List;
+
+// This class is the base of the writers that output parse results.
+// Every writer encodes straight into one large buffer, which is written to the
+// channel only when it fills or on flush(), so a listing costs a handful of
+// writes instead of several console calls per line. Numbers and text are
+// encoded byte by byte; the only Strings used are the ones the parsed line
+// already holds.
+//
+// Formats:
+//    text     the listing SICParserUI has always printed
+//    jsonl    one JSON object per line (JSON Lines)
+//    csv      a header row, then one row per line
+//    binary   compact records (see BinaryResultWriter)
+public abstract class ParseResultWriter implements Flushable {
+    public static final String TEXT_FORMAT = "text";
+    public static final String JSON_LINES_FORMAT = "jsonl";
+    public static final String CSV_FORMAT = "csv";
+    public static final String BINARY_FORMAT = "binary";
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final byte[] DIGITS = {'0', '1', '2', '3', '4', '5', '6', '7', '8', '9'};
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private final byte[] digits = new byte[11];
+    private final SourceLine sourceLine = new SourceLine();
+
+    protected ParseResultWriter(WritableByteChannel channel){
+        this.channel = channel;
+    }
+
+    // This function returns the writer for a format name, or throws
+    // IllegalArgumentException if there is none.
+    public static ParseResultWriter create(String format, WritableByteChannel channel){
+        switch (format){
+            case TEXT_FORMAT:
+                return new TextResultWriter(channel);
+            case JSON_LINES_FORMAT:
+                return new JsonLinesResultWriter(channel);
+            case CSV_FORMAT:
+                return new CsvResultWriter(channel);
+            case BINARY_FORMAT:
+                return new BinaryResultWriter(channel);
+            default:
+                throw new IllegalArgumentException("Unknown output format: " + format);
+        }
+    }
+
+    public static boolean isFormat(String format){
+        return format.equals(TEXT_FORMAT) || format.equals(JSON_LINES_FORMAT)
+                || format.equals(CSV_FORMAT) || format.equals(BINARY_FORMAT);
+    }
+
+    // Written once before the first line; formats with a header override it
+    public void writeHeader() throws IOException {
+    }
+
+    public abstract void write(ParsedLineOfCode lineOfCode) throws IOException;
+
+    // This function writes the header and every line, then flushes.
+    // The channel is not closed.
+    public void writeAll(List<ParsedLineOfCode> parsedCodeList) throws IOException {
+        writeHeader();
+        for (ParsedLineOfCode lineOfCode : parsedCodeList){
+            write(lineOfCode);
+        }
+        flush();
+    }
+
+    @Override
+    public void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()){
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    // The raw line, as a view into the source when possible (see ParsedLineOfCode)
+    protected CharSequence unparsedLine(ParsedLineOfCode lineOfCode){
+        return lineOfCode.getUnparsedLineOfCode(sourceLine);
+    }
+
+    protected void put(byte value) throws IOException {
+        if (!buffer.hasRemaining()){
+            flush();
+        }
+        buffer.put(value);
+    }
+
+    protected void put(byte[] values) throws IOException {
+        for (byte value : values){
+            put(value);
+        }
+    }
+
+    protected void putShort(int value) throws IOException {
+        put((byte) (value >>> 8));
+        put((byte) value);
+    }
+
+    protected void putInt(int value) throws IOException {
+        putShort(value >>> 16);
+        putShort(value);
+    }
+
+    // Writes an ASCII constant such as a field name
+    protected void putAscii(String text) throws IOException {
+        for (int index = 0; index < text.length(); index++){
+            put((byte) text.charAt(index));
+        }
+    }
+
+    // Writes an int as decimal digits
+    protected void putDecimal(int value) throws IOException {
+        long remaining = value;
+        if (remaining < 0){
+            put((byte) '-');
+            remaining = -remaining;
+        }
+        int count = 0;
+        do {
+            digits[count++] = DIGITS[(int) (remaining % 10)];
+            remaining /= 10;
+        } while (remaining != 0);
+        while (count > 0){
+            put(digits[--count]);
+        }
+    }
+
+    // Writes text as UTF-8. A SourceLine already holds UTF-8 bytes, so they are copied as is.
+    protected void putText(CharSequence text) throws IOException {
+        for (int index = 0; index < text.length(); index++){
+            index = putCharacter(text, index);
+        }
+    }
+
+    // Writes the character at index as UTF-8 and returns the index of its last
+    // UTF-16 unit, so callers that escape characters can walk text the same way.
+    protected int putCharacter(CharSequence text, int index) throws IOException {
+        char character = text.charAt(index);
+        if (character < 0x80 || text instanceof SourceLine){
+            put((byte) character);
+        }
+        else if (character < 0x800){
+            put((byte) (0xC0 | (character >>> 6)));
+            put((byte) (0x80 | (character & 0x3F)));
+        }
+        else if (Character.isHighSurrogate(character) && index + 1 < text.length()
+                && Character.isLowSurrogate(text.charAt(index + 1))){
+            int codePoint = Character.toCodePoint(character, text.charAt(++index));
+            put((byte) (0xF0 | (codePoint >>> 18)));
+            put((byte) (0x80 | ((codePoint >>> 12) & 0x3F)));
+            put((byte) (0x80 | ((codePoint >>> 6) & 0x3F)));
+            put((byte) (0x80 | (codePoint & 0x3F)));
+        }
+        else{
+            put((byte) (0xE0 | (character >>> 12)));
+            put((byte) (0x80 | ((character >>> 6) & 0x3F)));
+            put((byte) (0x80 | (character & 0x3F)));
+        }
+        return index;
+    }
+
+    // The number of UTF-8 bytes putText will write for the text
+    protected static int utf8Length(CharSequence text){
+        if (text instanceof SourceLine){
+            return text.length();
+        }
+        int length = 0;
+        for (int index = 0; index < text.length(); index++){
+            char character = text.charAt(index);
+            if (character < 0x80){
+                length += 1;
+            }
+            else if (character < 0x800){
+                length += 2;
+            }
+            else if (Character.isHighSurrogate(character) && index + 1 < text.length()
+                    && Character.isLowSurrogate(text.charAt(index + 1))){
+                length += 4;
+                index++;
+            }
+            else{
+                length += 3;
+            }
+        }
+        return length;
+    }
+}
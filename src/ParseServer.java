@@ -0,0 +1,297 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.AsynchronousCloseException;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.concurrent.Semaphore;
+
+// This class is a long-running parse server, so editors and hooks don't pay for
+// starting a JVM (and warming up the JIT) on every parse. It listens on a localhost
+// TCP port or a Unix domain socket. Each connection runs on its own virtual thread,
+// and a semaphore limits how many requests are parsed at once.
+//
+// The protocol is line based. A connection may send any number of requests:
+//    PING
+//    PARSE <format> <path>             parse a file under the server's source root
+//    SOURCE <format> <length>          followed by <length> bytes of assembly code
+// <format> is one of the ParseResultWriter formats (text, jsonl, csv, binary).
+// Every response is a header line followed by <length> bytes:
+//    OK <length>                       the parsed lines in the requested format
+//    DIAGNOSTICS <length>              one ParseDiagnostics line per problem
+//    ERROR <length>                    the request could not be served
+// PARSE is refused unless a source root has been set (see setSourceRoot), and a
+// path that leads outside the root, through ".." or a symbolic link, is refused too.
+public class ParseServer implements Closeable {
+    public static final int DEFAULT_PORT = 7117;
+    public static final int DEFAULT_MAXIMUM_CONCURRENT_REQUESTS = 64;
+    private static final int MAXIMUM_HEADER_LENGTH = 4096;
+    private static final int MAXIMUM_SOURCE_LENGTH = 64 * 1024 * 1024;
+    private static final int WARM_UP_ITERATIONS = 2000;
+    private static final String WARM_UP_PROGRAM = """
+            COPY    START   1000
+            FIRST   STL     RETADR
+            CLOOP   JSUB    RDREC
+                    LDA     LENGTH
+                    COMP    ZERO
+                    JEQ     ENDFIL
+            . comment line
+            ENDFIL  LDA     EOF
+                    STA     BUFFER,X
+                    RSUB
+            EOF     BYTE    C'EOF'
+            OUTPUT  BYTE    X'05'
+            ZERO    WORD    0
+            RETADR  RESW    1
+            BUFFER  RESB    4096
+                    END     FIRST
+            """;
+    private final ServerSocketChannel serverChannel;
+    private final Semaphore requestPermits;
+    private final Path socketFile;
+    // The real path of the directory PARSE reads from, or null if PARSE is refused
+    private Path sourceRoot;
+
+    private ParseServer(ServerSocketChannel serverChannel, int maximumConcurrentRequests, Path socketFile){
+        this.serverChannel = serverChannel;
+        this.requestPermits = new Semaphore(maximumConcurrentRequests);
+        this.socketFile = socketFile;
+    }
+
+    // Listens on the loopback interface only
+    public static ParseServer listen(int port, int maximumConcurrentRequests) throws IOException {
+        ServerSocketChannel serverChannel = ServerSocketChannel.open(StandardProtocolFamily.INET);
+        serverChannel.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+        return new ParseServer(serverChannel, maximumConcurrentRequests, null);
+    }
+
+    // Listens on a Unix domain socket. A socket file left behind by a server
+    // that didn't shut down is replaced.
+    public static ParseServer listen(Path socketFile, int maximumConcurrentRequests) throws IOException {
+        Files.deleteIfExists(socketFile);
+        ServerSocketChannel serverChannel = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        serverChannel.bind(UnixDomainSocketAddress.of(socketFile));
+        return new ParseServer(serverChannel, maximumConcurrentRequests, socketFile);
+    }
+
+    // Lets PARSE read the files under directory; must be called before run()
+    public void setSourceRoot(Path directory) throws IOException {
+        this.sourceRoot = directory.toRealPath();
+        if (!Files.isDirectory(sourceRoot)){
+            throw new IOException("Not a directory: " + directory);
+        }
+    }
+
+    public SocketAddress getAddress() throws IOException {
+        return serverChannel.getLocalAddress();
+    }
+
+    // This function parses a sample program until the JIT has compiled the parser,
+    // so the first real requests don't run in the interpreter. It must be called
+    // before run(): the warm-up parses are then cleared from ParseMetrics, so
+    // --stats only reports the requests that were served.
+    public void warmUp(){
+        byte[] program = WARM_UP_PROGRAM.getBytes(StandardCharsets.US_ASCII);
+        for (int iteration = 0; iteration < WARM_UP_ITERATIONS; iteration++){
+            parse(program, new ParseDiagnostics());
+        }
+        ParseMetrics.reset();
+    }
+
+    // This function accepts connections until the server is closed.
+    public void run() throws IOException {
+        try {
+            while (true){
+                SocketChannel connection = serverChannel.accept();
+                Thread.ofVirtual().name("parse-connection").start(() -> serve(connection));
+            }
+        }
+
+        catch (AsynchronousCloseException _){
+            // close() was called
+        }
+    }
+
+    private void serve(SocketChannel connection){
+        try (connection;
+             InputStream input = new BufferedInputStream(Channels.newInputStream(connection));
+             OutputStream output = new BufferedOutputStream(Channels.newOutputStream(connection))){
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            String header;
+
+            while ((header = readHeader(input)) != null){
+                body.reset();
+                String status;
+                try {
+                    status = handle(header, input, body);
+                }
+
+                catch (IllegalArgumentException e){
+                    status = "ERROR";
+                    body.reset();
+                    body.write(e.getMessage().getBytes(StandardCharsets.UTF_8));
+                }
+
+                output.write((status + " " + body.size() + "\n").getBytes(StandardCharsets.US_ASCII));
+                body.writeTo(output);
+                output.flush();
+            }
+        }
+
+        catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+        }
+
+        catch (IOException _){
+            // The client went away
+        }
+    }
+
+    // Serves one request into body and returns the response status.
+    // A malformed request is reported as IllegalArgumentException.
+    // The request is read in full before a permit is taken, so a client that
+    // uploads slowly or stalls holds no permit; only parsing is limited.
+    private String handle(String header, InputStream input, ByteArrayOutputStream body)
+            throws IOException, InterruptedException {
+        String[] fields = header.split(" ", 3);
+        String command = fields[0];
+        if (command.equals("PING")){
+            return "OK";
+        }
+
+        if (fields.length != 3 || !ParseResultWriter.isFormat(fields[1])){
+            throw new IllegalArgumentException("Usage: PING | PARSE <format> <path> | SOURCE <format> <length>");
+        }
+        String format = fields[1];
+        byte[] source;
+
+        if (command.equals("PARSE")){
+            source = readSourceFile(fields[2]);
+        }
+        else if (command.equals("SOURCE")){
+            int length;
+            try {
+                length = Integer.parseInt(fields[2]);
+            }
+
+            catch (NumberFormatException e){
+                throw new IllegalArgumentException("Source length is not a number: " + fields[2]);
+            }
+            if (length < 0 || length > MAXIMUM_SOURCE_LENGTH){
+                throw new IllegalArgumentException("Source length must be between 0 and " + MAXIMUM_SOURCE_LENGTH + ".");
+            }
+
+            source = input.readNBytes(length);
+            if (source.length != length){
+                throw new IOException("Connection closed in the middle of a request.");
+            }
+        }
+        else{
+            throw new IllegalArgumentException("Unknown command: " + command);
+        }
+
+        requestPermits.acquire();
+        try {
+            ParseDiagnostics diagnostics = new ParseDiagnostics();
+            ArrayList<ParsedLineOfCode> parsedCodeList = parse(source, diagnostics);
+            if (!diagnostics.isEmpty()){
+                body.write(diagnostics.toString().getBytes(StandardCharsets.UTF_8));
+                return "DIAGNOSTICS";
+            }
+
+            ParseResultWriter.create(format, Channels.newChannel(body)).writeAll(parsedCodeList);
+            return "OK";
+        }
+
+        finally {
+            requestPermits.release();
+        }
+    }
+
+    // This function reads a file named relative to the source root. The path is
+    // checked after ".." and symbolic links have been resolved, so nothing
+    // outside the root can be read.
+    private byte[] readSourceFile(String fileName){
+        if (sourceRoot == null){
+            throw new IllegalArgumentException("PARSE is not enabled on this server; send SOURCE instead.");
+        }
+        try {
+            Path sourceFile = sourceRoot.resolve(fileName).normalize();
+            if (sourceFile.startsWith(sourceRoot)){
+                sourceFile = sourceFile.toRealPath();
+            }
+            if (!sourceFile.startsWith(sourceRoot)){
+                throw new IllegalArgumentException("Assembly Code file is not under the source root: " + fileName);
+            }
+            if (!Files.isRegularFile(sourceFile)){
+                throw new IOException(sourceFile.toString());
+            }
+            return Files.readAllBytes(sourceFile);
+        }
+
+        catch (IOException | InvalidPathException e){
+            throw new IllegalArgumentException("Assembly Code file could not be read: " + fileName);
+        }
+    }
+
+    private static ArrayList<ParsedLineOfCode> parse(byte[] source, ParseDiagnostics diagnostics){
+        ArrayList<ParsedLineOfCode> parsedCodeList = new ArrayList<>();
+        ParsedLineIterator lineIterator = new ParsedLineIterator(AssemblySource.wrap(source, source.length), diagnostics);
+        try {
+            ParsedLineOfCode lineOfCode;
+            while ((lineOfCode = lineIterator.nextLineOfCode()) != null){
+                parsedCodeList.add(lineOfCode);
+            }
+        }
+
+        catch (SICParsingError e){
+            // Only thrown when parsing without diagnostics
+            throw new IllegalStateException(e);
+        }
+        return parsedCodeList;
+    }
+
+    // Reads one header line, or returns null at the end of the connection
+    private static String readHeader(InputStream input) throws IOException {
+        ByteArrayOutputStream header = new ByteArrayOutputStream();
+        int value;
+        while ((value = input.read()) != '\n'){
+            if (value == -1){
+                if (header.size() == 0){
+                    return null;
+                }
+                break;
+            }
+            if (header.size() == MAXIMUM_HEADER_LENGTH){
+                throw new IOException("Request header is too long.");
+            }
+            header.write(value);
+        }
+
+        String line = header.toString(StandardCharsets.UTF_8);
+        return line.endsWith("\r") ? line.substring(0, line.length() - 1) : line;
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverChannel.close();
+        if (socketFile != null){
+            Files.deleteIfExists(socketFile);
+        }
+    }
+}
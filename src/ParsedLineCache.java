@@ -0,0 +1,235 @@
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+// This class remembers the parse result of each distinct line of code, keyed by
+// the raw text of the line. Lines such as "        RSUB", "ZERO    WORD    0" or
+// a comment banner repeat within and across files; once one has been parsed, every
+// copy of it is a hash lookup plus restoring the stored label, opcode and operand.
+// The result of a line that failed validation is kept as well (its message, error
+// code and columns), and reported again with the line number of each copy.
+//
+// One cache can be shared by any number of threads parsing different files:
+//    1.) Entries are split over SEGMENT_COUNT segments by hash, each a LinkedHashMap
+//        in access order guarded by its own lock, so threads rarely wait for each other.
+//    2.) Each segment holds at most its share of maximumEntries and drops its least
+//        recently used entry when full, so the cache never grows past maximumEntries.
+//    3.) Entries are immutable; Strings in them are shared by every line restored from them.
+// A lookup doesn't create a String for the line: it probes with a per-thread key that
+// wraps the line's characters in place. Only a miss copies the line into a new key.
+// Blank lines, lines longer than MAXIMUM_LINE_LENGTH and structure-only scans bypass the cache.
+//
+// Use it by passing it to a parse:
+//    ParsedLineCache lineCache = new ParsedLineCache(ParsedLineCache.DEFAULT_MAXIMUM_ENTRIES);
+//    ParseAssemblyCode.parse(assemblyCodeFile, lineCache);
+//    BatchParser.parseAll(assemblyCodeFiles, threadCount, null, lineCache);
+public class ParsedLineCache {
+    public static final int DEFAULT_MAXIMUM_ENTRIES = 65536;
+    public static final int MAXIMUM_LINE_LENGTH = 256;
+    private static final int SEGMENT_COUNT = 16;
+    private static final ThreadLocal<LineKey> PROBE = ThreadLocal.withInitial(LineKey::new);
+    // Collects the problem of a line parsed on a miss, whichever way the caller reports problems
+    private static final ThreadLocal<ParseDiagnostics> PROBLEM = ThreadLocal.withInitial(() -> new ParseDiagnostics(false));
+    private final Segment[] segments = new Segment[SEGMENT_COUNT];
+    private final int maximumEntries;
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+
+    public ParsedLineCache(int maximumEntries){
+        if (maximumEntries < 1){
+            throw new IllegalArgumentException("maximumEntries must be at least 1.");
+        }
+        this.maximumEntries = maximumEntries;
+        int segmentCapacity = (maximumEntries + SEGMENT_COUNT - 1) / SEGMENT_COUNT;
+        for (int index = 0; index < SEGMENT_COUNT; index++){
+            // The first segments take one fewer entry when maximumEntries doesn't divide evenly
+            int capacity = index < segmentCapacity * SEGMENT_COUNT - maximumEntries ? segmentCapacity - 1 : segmentCapacity;
+            segments[index] = new Segment(capacity, evictionCount);
+        }
+    }
+
+    // A line's text, compared character by character. The key of a stored entry
+    // holds its own copy of the text; the probe key of a lookup points at the line.
+    private static final class LineKey {
+        private CharSequence text;
+        private int hash;
+
+        private LineKey set(CharSequence text){
+            this.text = text;
+            int hash = 0;
+            for (int index = 0; index < text.length(); index++){
+                hash = 31 * hash + text.charAt(index);
+            }
+            this.hash = hash;
+            return this;
+        }
+
+        @Override
+        public int hashCode(){
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object other){
+            if (!(other instanceof LineKey otherKey) || otherKey.hash != hash || otherKey.text.length() != text.length()){
+                return false;
+            }
+            for (int index = 0; index < text.length(); index++){
+                if (otherKey.text.charAt(index) != text.charAt(index)){
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    // The parse result of a line, without its line number
+    private static final class Entry {
+        private final String label;
+        private final SICOpcode opcode;
+        private final String operand;
+        private final int operandValue;
+        private final boolean isComment;
+        private final boolean isIndexed;
+        // Set when the line failed validation
+        private final ParseErrorCode errorCode;
+        private final int startColumn;
+        private final int endColumn;
+        private final String message;
+
+        private Entry(ParsedLineOfCode lineOfCode, ParseDiagnostics problem){
+            this.label = lineOfCode.getLabel();
+            this.opcode = lineOfCode.getSICOpcode();
+            this.operand = lineOfCode.getOperand();
+            this.operandValue = lineOfCode.getOperandValue();
+            this.isComment = lineOfCode.getIsComment();
+            this.isIndexed = lineOfCode.getIsIndexed();
+            boolean isValid = problem.isEmpty();
+            this.errorCode = isValid ? null : problem.getErrorCode(0);
+            this.startColumn = isValid ? 0 : problem.getStartColumn(0);
+            this.endColumn = isValid ? 0 : problem.getEndColumn(0);
+            this.message = isValid ? null : problem.getMessage(0);
+        }
+    }
+
+    private static final class Segment extends LinkedHashMap<LineKey, Entry> {
+        private final int capacity;
+        private final LongAdder evictionCount;
+
+        private Segment(int capacity, LongAdder evictionCount){
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+            this.evictionCount = evictionCount;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<LineKey, Entry> eldest){
+            if (size() > capacity){
+                evictionCount.increment();
+                return true;
+            }
+            return false;
+        }
+    }
+
+    // This function parses a line like ParseAssemblyCode.parseLine, restoring the
+    // result from the cache when the same text was parsed before.
+    boolean parseLine(ParsedLineOfCode lineOfCode, CharSequence unparsedLineOfCode, AssemblyLineLexer lexer,
+                      ParseDiagnostics diagnostics) throws SICParsingError {
+        if (unparsedLineOfCode.length() > MAXIMUM_LINE_LENGTH || ParseAssemblyCode.isBlank(unparsedLineOfCode)){
+            return ParseAssemblyCode.parseLine(lineOfCode, unparsedLineOfCode, lexer, diagnostics);
+        }
+
+        LineKey probe = PROBE.get().set(unparsedLineOfCode);
+        Segment segment = segments[segmentIndex(probe.hash)];
+        Entry entry;
+        synchronized (segment){
+            entry = segment.get(probe);
+        }
+        probe.text = null;
+
+        if (entry != null){
+            hitCount.increment();
+            ParseMetrics.increment(ParseMetrics.Counter.LINES);
+            if (entry.isComment){
+                ParseMetrics.increment(ParseMetrics.Counter.COMMENTS);
+            }
+            lineOfCode.restore(entry.label, entry.opcode, entry.operand, entry.operandValue, entry.isComment, entry.isIndexed);
+        }
+        else{
+            missCount.increment();
+            ParseDiagnostics problem = PROBLEM.get();
+            problem.clear();
+            ParseAssemblyCode.parseLine(lineOfCode, unparsedLineOfCode, lexer, problem);
+            entry = new Entry(lineOfCode, problem);
+            LineKey key = new LineKey().set(new StringBuilder(unparsedLineOfCode).toString());
+            synchronized (segment){
+                segment.put(key, entry);
+            }
+        }
+
+        if (entry.errorCode == null){
+            return true;
+        }
+        if (diagnostics != null){
+            diagnostics.add(lineOfCode.getLineNumber(), entry.startColumn, entry.endColumn, entry.errorCode, entry.message);
+            return false;
+        }
+        ParseMetrics.increment(ParseMetrics.Counter.ERRORS);
+        throw ParseAssemblyCode.lineError(lineOfCode, entry.errorCode, entry.message);
+    }
+
+    private static int segmentIndex(int hash){
+        return (hash ^ (hash >>> 16)) & (SEGMENT_COUNT - 1);
+    }
+
+    // The number of lines restored from the cache
+    public long getHitCount(){
+        return hitCount.sum();
+    }
+
+    // The number of lines parsed and added to the cache
+    public long getMissCount(){
+        return missCount.sum();
+    }
+
+    // The number of entries dropped to stay within maximumEntries
+    public long getEvictionCount(){
+        return evictionCount.sum();
+    }
+
+    public double getHitRate(){
+        long hits = getHitCount();
+        long lookups = hits + getMissCount();
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    public int getMaximumEntries(){
+        return maximumEntries;
+    }
+
+    public int size(){
+        int size = 0;
+        for (Segment segment : segments){
+            synchronized (segment){
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    public void clear(){
+        for (Segment segment : segments){
+            synchronized (segment){
+                segment.clear();
+            }
+        }
+    }
+
+    @Override
+    public String toString(){
+        return String.format("Line cache: %d hits, %d misses (%.1f%% hit rate), %d entries, %d evicted",
+                getHitCount(), getMissCount(), getHitRate() * 100, size(), getEvictionCount());
+    }
+}
@@ -0,0 +1,141 @@
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+// This class parses an assembly code file one line at a time as lines are pulled.
+// Nothing is kept once a line has been returned, so memory use does not grow
+// with the size of the file.
+// The program rules are still enforced in order:
+//    1.) START must be the first opcode; a line before it fails when it is pulled.
+//    2.) END must be present; a missing END fails once the file is exhausted.
+//    3.) END is the last line returned; anything after it is never read.
+// The Iterator methods report errors as UncheckedSICParsingError.
+// nextLineOfCode() reports them as the checked SICParsingError.
+// When created with a ParseDiagnostics, nothing is thrown for the contents of
+// the file: each problem is recorded there and parsing resumes at the next line.
+// A structure-only iterator leaves operands to be validated later
+// (see ParseAssemblyCode.scan).
+// When created with a LabelCrossReference, each line that parses without a
+// problem is added to it as it is returned.
+public class ParsedLineIterator implements Iterator<ParsedLineOfCode> {
+    private final AssemblySource source;
+    private final SourceLine sourceLine = new SourceLine();
+    private final AssemblyLineLexer lexer = new AssemblyLineLexer();
+    private final ParseDiagnostics diagnostics;
+    private final boolean isStructureOnly;
+    private final ParsedLineCache lineCache;
+    private final LabelCrossReference crossReference;
+    private ParsedLineOfCode pendingLineOfCode;
+    private int lineNumber = 0;
+    private boolean startFound = false;
+    private boolean endFound = false;
+    private boolean finished = false;
+
+    public ParsedLineIterator(AssemblySource source){
+        this(source, null);
+    }
+
+    public ParsedLineIterator(AssemblySource source, ParseDiagnostics diagnostics){
+        this(source, diagnostics, false);
+    }
+
+    public ParsedLineIterator(AssemblySource source, ParseDiagnostics diagnostics, boolean isStructureOnly){
+        this(source, diagnostics, isStructureOnly, null);
+    }
+
+    // Lines parsed before are restored from lineCache when it is not null
+    public ParsedLineIterator(AssemblySource source, ParseDiagnostics diagnostics, boolean isStructureOnly,
+                              ParsedLineCache lineCache){
+        this(source, diagnostics, isStructureOnly, lineCache, null);
+    }
+
+    // Lines are also indexed in crossReference when it is not null
+    public ParsedLineIterator(AssemblySource source, ParseDiagnostics diagnostics, boolean isStructureOnly,
+                              ParsedLineCache lineCache, LabelCrossReference crossReference){
+        this.source = source;
+        this.diagnostics = diagnostics;
+        this.isStructureOnly = isStructureOnly;
+        this.lineCache = lineCache;
+        this.crossReference = crossReference;
+    }
+
+    @Override
+    public boolean hasNext(){
+        if (pendingLineOfCode == null && !finished){
+            try {
+                pendingLineOfCode = readLine();
+            }
+
+            catch (SICParsingError e){
+                finished = true;
+                throw new UncheckedSICParsingError(e);
+            }
+        }
+        return pendingLineOfCode != null;
+    }
+
+    @Override
+    public ParsedLineOfCode next(){
+        if (!hasNext()){
+            throw new NoSuchElementException();
+        }
+        ParsedLineOfCode lineOfCode = pendingLineOfCode;
+        pendingLineOfCode = null;
+        return lineOfCode;
+    }
+
+    // This function returns the next parsed line, or null once END has been returned.
+    // It must not be mixed with hasNext()/next() on the same iterator.
+    public ParsedLineOfCode nextLineOfCode() throws SICParsingError {
+        if (finished){
+            return null;
+        }
+
+        try {
+            return readLine();
+        }
+
+        catch (SICParsingError e){
+            finished = true;
+            throw e;
+        }
+    }
+
+    private ParsedLineOfCode readLine() throws SICParsingError {
+        if (endFound || !source.nextLine()){
+            finished = true;
+            if (diagnostics != null && !endFound){
+                diagnostics.add(lineNumber, 0, 0, ParseErrorCode.MISSING_END, ParseAssemblyCode.MISSING_END_MESSAGE);
+            }
+            else{
+                ParseAssemblyCode.checkEndFound(endFound);
+            }
+            return null;
+        }
+
+        lineNumber += 1;
+        sourceLine.set(source, source.lineStart(), source.lineEnd());
+        ParsedLineOfCode lineOfCode = new ParsedLineOfCode();
+        lineOfCode.setLineNumber(lineNumber);
+        lineOfCode.setUnparsedLineOfCode(source, source.lineStart(), source.lineEnd());
+
+        boolean lineValid = ParseAssemblyCode.parseLine(lineOfCode, sourceLine, lexer, diagnostics, isStructureOnly, lineCache);
+
+        if (lineValid && !lineOfCode.getIsComment()){
+            if (diagnostics != null && !startFound && lineOfCode.getSICOpcode() != SICOpcode.START){
+                // Report the missing START once and carry on as if it had been found
+                diagnostics.add(lineNumber, 0, sourceLine.length(), ParseErrorCode.START_NOT_FIRST,
+                        ParseAssemblyCode.START_NOT_FIRST_MESSAGE);
+                endFound = lineOfCode.getSICOpcode() == SICOpcode.END;
+            }
+            else{
+                endFound = ParseAssemblyCode.isEndOfProgram(lineOfCode, startFound);
+            }
+            startFound = true;
+        }
+        if (lineValid && crossReference != null){
+            crossReference.add(lineOfCode);
+        }
+
+        return lineOfCode;
+    }
+}
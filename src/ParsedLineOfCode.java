@@ -1,8 +1,6 @@
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.List;
-
 public class ParsedLineOfCode{
+    // getOperandValue() of an operand that isn't a number
+    public static final int NO_OPERAND_VALUE = Integer.MIN_VALUE;
     private static final int MAXIMUM_START_OPERAND_LENGTH = 4;
     private static final int MINIMUM_MEMORY_ADDRESS_DEC = 0;
     private static final int MAXIMUM_MEMORY_ADDRESS_DEC = 32767;
@@ -14,13 +12,22 @@ public class ParsedLineOfCode{
     private static final int MAXIMUM_RESB_VALUE = 32768;
     private static final int MINIMUM_RESW_VALUE = 1;
     private static final int MAXIMUM_RESW_VALUE = 10922;
-    private static final int MAXIMUM_LENGTH_OF_OPERAND = 5;
+    private static final int NO_PENDING_OPERAND = -1;
     private int lineNumber;
     private String label;
-    private String opcode;
+    private SICOpcode opcode;
     private String operand;
+    private int operandValue = NO_OPERAND_VALUE;
     private String unparsedLineOfCode;
+    private AssemblySource source;
+    private int sourceStart;
+    private int sourceEnd;
     private boolean isComment = false;
+    private boolean isIndexed = false;
+    // Where the operand sits in the line when its validation was put off (see validate())
+    private int pendingOperandStart = NO_PENDING_OPERAND;
+    private int pendingOperandEnd;
+    private SICParsingError operandError;
 
 
     public int getLineNumber(){
@@ -36,35 +43,159 @@ public class ParsedLineOfCode{
     }
 
     public void setLabel(String label) throws SICParsingError {
-        this.label = validateLabel(label);
+        long startTime = ParseMetrics.start();
+        try {
+            this.label = validateLabel(label);
+        }
+
+        finally {
+            ParseMetrics.stop(ParseMetrics.Timer.VALIDATE_LABEL, startTime);
+        }
     }
 
     public void setLoneOpcode(String loneOpcode) throws SICParsingError {
+        setLoneOpcode(loneOpcode, 0, loneOpcode.length());
+    }
+
+    // Validates the lone opcode between start and end of the line without copying it
+    public void setLoneOpcode(CharSequence lineOfCode, int start, int end) throws SICParsingError {
+        long startTime = ParseMetrics.start();
+        SICOpcode loneOpcode = SICOpcode.lookup(lineOfCode, start, end);
+        ParseMetrics.stop(ParseMetrics.Timer.OPCODE_LOOKUP, startTime);
         this.opcode = validateLoneOpcode(loneOpcode);
     }
 
+    // The mnemonic is the enum constant name, so no String is created here.
     public String getOpcode(){
+        return opcode == null ? null : opcode.name();
+    }
+
+    public SICOpcode getSICOpcode(){
         return opcode;
     }
 
     public void setOpcode(String opcode) throws SICParsingError {
+        setOpcode(opcode, 0, opcode.length());
+    }
+
+    // Validates the opcode between start and end of the line without copying it
+    public void setOpcode(CharSequence lineOfCode, int start, int end) throws SICParsingError {
+        long startTime = ParseMetrics.start();
+        SICOpcode opcode = SICOpcode.lookup(lineOfCode, start, end);
+        ParseMetrics.stop(ParseMetrics.Timer.OPCODE_LOOKUP, startTime);
         this.opcode = validateOpcode(opcode);
     }
 
+    // An operand left by a structure-only scan is validated here first; if it is
+    // invalid, the error is thrown wrapped in UncheckedSICParsingError.
     public String getOperand(){
+        if (pendingOperandStart != NO_PENDING_OPERAND || operandError != null){
+            try {
+                validate();
+            }
+
+            catch (SICParsingError e){
+                throw new UncheckedSICParsingError(e);
+            }
+        }
         return operand;
     }
 
+    // The number the operand was decoded to during validation: the address of
+    // START, the value of WORD, or the count of RESB and RESW. NO_OPERAND_VALUE
+    // for instruction operands, BYTE constants and lines without an operand.
+    public int getOperandValue(){
+        if (pendingOperandStart != NO_PENDING_OPERAND || operandError != null){
+            getOperand();
+        }
+        return operandValue;
+    }
+
+    // Records where the operand sits in the line without validating it
+    // (see ParseAssemblyCode.scan). isIndexed is set from the text right away.
+    void setPendingOperand(CharSequence lineOfCode, int start, int end){
+        this.pendingOperandStart = start;
+        this.pendingOperandEnd = end;
+        this.isIndexed = end - start >= 2 && lineOfCode.charAt(end - 2) == ',' && lineOfCode.charAt(end - 1) == 'X';
+    }
+
+    // This function validates an operand a structure-only scan left pending.
+    // It does nothing for a line that was parsed in full. An invalid operand
+    // throws the same error ParseAssemblyCode.parse would have, on this and every
+    // later call. A line must not be validated by two threads at once.
+    public void validate() throws SICParsingError {
+        if (operandError != null){
+            throw operandError;
+        }
+        if (pendingOperandStart == NO_PENDING_OPERAND){
+            return;
+        }
+
+        String pendingOperand = source != null
+                ? source.text(sourceStart + pendingOperandStart, sourceStart + pendingOperandEnd)
+                : unparsedLineOfCode.substring(pendingOperandStart, pendingOperandEnd);
+        pendingOperandStart = NO_PENDING_OPERAND;
+        try {
+            setOperand(pendingOperand);
+        }
+
+        catch (SICParsingError ex){
+            ParseMetrics.increment(ParseMetrics.Counter.ERRORS);
+            operandError = new SICParsingError("Parser Error: " + ex.getMessage() + "\n" +
+                    "LINE " + lineNumber + ": " + getUnparsedLineOfCode());
+            throw operandError;
+        }
+    }
+
+    // The indexed addressing indicator(",X") is removed from the operand
+    // during validation and recorded in isIndexed instead.
     public void setOperand(String operand) throws SICParsingError {
-        this.operand = validateOperand(operand, this.opcode);
+        long startTime = ParseMetrics.start();
+        this.operandValue = NO_OPERAND_VALUE;
+        try {
+            this.operand = validateOperand(operand, this.opcode);
+        }
+
+        finally {
+            ParseMetrics.stop(ParseMetrics.operandTimer(this.opcode), startTime);
+        }
+        this.isIndexed = operand.endsWith(",X");
     }
 
+    public boolean getIsIndexed(){
+        return isIndexed;
+    }
+
+    // Lines read from an AssemblySource only become a String
+    // the first time they are asked for.
     public String getUnparsedLineOfCode(){
+        if (unparsedLineOfCode == null && source != null){
+            unparsedLineOfCode = source.text(sourceStart, sourceEnd);
+        }
+        return unparsedLineOfCode;
+    }
+
+    // The raw line without creating a String: a line that still points into
+    // its AssemblySource is returned as the given view (whose characters are
+    // the raw UTF-8 bytes), otherwise the String itself is returned.
+    CharSequence getUnparsedLineOfCode(SourceLine view){
+        if (unparsedLineOfCode == null && source != null){
+            view.set(source, sourceStart, sourceEnd);
+            return view;
+        }
         return unparsedLineOfCode;
     }
 
     public void setUnparsedLineOfCode(String lineOfCode){
         this.unparsedLineOfCode = lineOfCode;
+        this.source = null;
+    }
+
+    public void setUnparsedLineOfCode(AssemblySource source, int start, int end){
+        this.unparsedLineOfCode = null;
+        this.source = source;
+        this.sourceStart = start;
+        this.sourceEnd = end;
     }
 
     public boolean getIsComment(){
@@ -75,57 +206,68 @@ public class ParsedLineOfCode{
         this.isComment = isComment;
     }
 
+    // Sets the attributes of a line that was validated before (see ParseCache)
+    // without validating them again
+    void restore(String label, SICOpcode opcode, String operand, int operandValue, boolean isComment, boolean isIndexed){
+        this.label = label;
+        this.opcode = opcode;
+        this.operand = operand;
+        this.operandValue = operandValue;
+        this.isComment = isComment;
+        this.isIndexed = isIndexed;
+        this.pendingOperandStart = NO_PENDING_OPERAND;
+        this.operandError = null;
+    }
+
+    // Resets every attribute so the object can be reused for another line
+    void clear(){
+        lineNumber = 0;
+        label = null;
+        opcode = null;
+        operand = null;
+        operandValue = NO_OPERAND_VALUE;
+        unparsedLineOfCode = null;
+        source = null;
+        isComment = false;
+        isIndexed = false;
+        pendingOperandStart = NO_PENDING_OPERAND;
+        operandError = null;
+    }
+
     // This function validates label tokens against defined label rules:
     // 1) Labels can only contain uppercase (A-Z) and numeric (0-9) characters
     // 2) The first character in a label must be uppercase (A-Z)
     // 3) Labels must be 1 to 6 characters in length
     private String validateLabel(String label) throws SICParsingError {
-        char firstCharacter = label.charAt(0);
-        // Label must be Uppercase and Alphanumeric
-        boolean charactersValid = label.equals(label.toUpperCase()) && label.matches("[A-Z0-9]+");
-        // The first character in the label must be alphabetical
-        boolean firstCharacterValid = Character.isAlphabetic(firstCharacter);
-        // The label can not be longer than 6 characters
-        boolean lengthValid = label.length() <= 6;
-        
-        if (charactersValid && firstCharacterValid && lengthValid){
+        // Length, first character and character set are checked in one pass
+        if (SICCharacters.isLabel(label, 0, label.length())){
             return label;
         }
         else{
-            throw new SICParsingError("Invalid Label.");
+            throw new SICParsingError("Invalid Label.", false);
         }
     }
 
     // This function validates opcode tokens
-    // against a set of valid opcodes.
-    private String validateOpcode(String opcode) throws SICParsingError {
-      boolean opcodeValid = false;
-      List<String> opcodeValidationSet = Arrays.asList("ADD", "AND", "COMP", "DIV", "J", "JEQ", "JGT",
-                                                    "JLT", "JSUB", "LDA", "LDCH", "LDL", "LDX", "MUL",
-                                                    "OR", "RD", "RSUB", "STA", "STCH", "STL", "STSW",
-                                                    "STX", "SUB", "TD", "TIX", "WD", "START", "END",
-                                                    "BYTE", "WORD", "RESB", "RESW");
-
-      if (opcodeValidationSet.contains(opcode)){
-          return opcode;
-      }
-      else{
-          throw new SICParsingError("Opcode is invalid.");
-
-      }
+    // against the SIC opcode table.
+    private SICOpcode validateOpcode(SICOpcode opcode) throws SICParsingError {
+        if (opcode != null){
+            return opcode;
+        }
+        else{
+            throw new SICParsingError("Opcode is invalid.", false);
+        }
     }
 
     // This function validates opcode tokens
-    // against a set of valid opcodes
-    private String validateLoneOpcode(String opcode) throws SICParsingError {
-        List<String> loneOpcodeValidationSet = Arrays.asList("RSUB", "END");
-
-        if (loneOpcodeValidationSet.contains(opcode)){
+    // that appear without an operand (RSUB and END)
+    private SICOpcode validateLoneOpcode(SICOpcode opcode) throws SICParsingError {
+        if (opcode != null && !opcode.takesOperand()){
             return opcode;
         }
 
         else{
-            throw new SICParsingError("Lone opcode is invalid.");
+            throw new SICParsingError("Lone opcode is invalid.", false);
         }
     }
 
@@ -134,24 +276,16 @@ public class ParsedLineOfCode{
     //      1) Operand must be a valid memory address hex string (0000 - 7FFF).
     //         No additional decoration should be present.
     private String validateSTARTOperand(String operand) throws SICParsingError {
-        Integer decValue = null;
-
         if (operand.length() > MAXIMUM_START_OPERAND_LENGTH){
-            throw new SICParsingError("Start address must be between 0000-7FFF");
+            throw new SICParsingError("Start address must be between 0000-7FFF", false);
         }
 
-        try{
-            decValue = Integer.parseInt(operand, 16);
-        }
-
-        catch (NumberFormatException ne){
-            throw new SICParsingError("Start address must be between 0000-7FFF");
-        }
-
-        if (decValue < MINIMUM_MEMORY_ADDRESS_DEC || decValue > MAXIMUM_MEMORY_ADDRESS_DEC){
-            throw new SICParsingError("Start address must be between 0000-7FFF");
+        long decValue = SICNumbers.decode(operand, 16, MINIMUM_MEMORY_ADDRESS_DEC, MAXIMUM_MEMORY_ADDRESS_DEC);
+        if (decValue == SICNumbers.NOT_A_NUMBER || decValue == SICNumbers.OUT_OF_RANGE){
+            throw new SICParsingError("Start address must be between 0000-7FFF", false);
         }
 
+        this.operandValue = (int) decValue;
         return operand;
     }
 
@@ -163,53 +297,53 @@ public class ParsedLineOfCode{
     //      3A.) If operand is a character string it must be formed as such "C'aaaa...'" (a = valid ascii character)
     //      3B.) The character string must contain an even number of characters and must be  1-32 characters in length.
     private String validateBYTEOperand(String operand) throws SICParsingError {
-        List<String> hexDigitSet = Arrays.asList("0", "1", "2", "3", "4", "5", "6", "7", "8", "9", "A", "B", "C", "D", "E", "F");
-
         // Test for valid string length
         if (operand.length() < 4){
-            throw new SICParsingError("Invalid BYTE operand");
+            throw new SICParsingError("Invalid BYTE operand", false);
         }
 
-        String byteOperandSubstring = operand.substring(operand.indexOf("'") + 1, operand.lastIndexOf("'"));
+        if (operand.indexOf('\'') == 1 && operand.lastIndexOf('\'') == (operand.length() - 1)){
+            // The characters between the quotation marks
+            int byteOperandStart = 2;
+            int byteOperandEnd = operand.length() - 1;
+            int byteOperandLength = byteOperandEnd - byteOperandStart;
 
-        if (operand.indexOf("'") == 1 && operand.lastIndexOf("'") == (operand.length() - 1)){
-            if (byteOperandSubstring.isEmpty() || byteOperandSubstring.length() > MAXIMUM_BYTE_OPERAND_LENGTH){
-               throw new SICParsingError("Operand must have 1-32 characters between quotations");
+            if (byteOperandLength < MINIMUM_BYTE_OPERAND_LENGTH || byteOperandLength > MAXIMUM_BYTE_OPERAND_LENGTH){
+               throw new SICParsingError("Operand must have 1-32 characters between quotations", false);
             }
 
-            if (operand.startsWith("X")){
+            if (operand.charAt(0) == 'X'){
                 // Handle hex
-                if (byteOperandSubstring.length() % 2 == 0){
-                    for (int index = 0; index < byteOperandSubstring.length(); index++){
-                        char hexDigit = byteOperandSubstring.charAt(index);
-                        if (!hexDigitSet.contains(Character.toString(hexDigit))){
-                            throw new SICParsingError("Operand must contain valid hex value.");
+                if (byteOperandLength % 2 == 0){
+                    for (int index = byteOperandStart; index < byteOperandEnd; index++){
+                        if (!SICCharacters.isHexDigit(operand.charAt(index))){
+                            throw new SICParsingError("Operand must contain valid hex value.", false);
                         }
                     }
                     return operand;
                 }
                 else{
-                    throw new SICParsingError("Operand must contain an even number of hex digits.");
+                    throw new SICParsingError("Operand must contain an even number of hex digits.", false);
                 }
             }
 
-            else if (operand.startsWith("C")){
+            else if (operand.charAt(0) == 'C'){
                 // Handle characters
-                if (byteOperandSubstring.matches("\\A\\p{ASCII}*\\z")){
+                if (isAscii(operand, byteOperandStart, byteOperandEnd)){
                     return operand;
                 }
 
                 else{
-                    throw new SICParsingError("Operand must contain ascii characters.");
+                    throw new SICParsingError("Operand must contain ascii characters.", false);
                 }
             }
 
             else{
-               throw new SICParsingError("Valid format indicator(C or X) required in Operand");
+               throw new SICParsingError("Valid format indicator(C or X) required in Operand", false);
             }
         }
         else{
-            throw new SICParsingError("Single quotation marks missing from OPERAND");
+            throw new SICParsingError("Single quotation marks missing from OPERAND", false);
         }
     }
 
@@ -218,22 +352,18 @@ public class ParsedLineOfCode{
     //  1.) Operand can be a decimal integer in the supported SIC architecture range.
     //        -8,388,608 to 8,388,607
     private String validateWORDOperand(String operand) throws SICParsingError {
-       Integer wordValue = null;
+        long wordValue = SICNumbers.decode(operand, 10, MINIMUM_INTEGER, MAXIMUM_INTEGER);
 
-        try{
-            wordValue = Integer.parseInt(operand);
-        }
-        catch (NumberFormatException e){
-            throw new SICParsingError("WORD operand must be a decimal integer");
+        if (wordValue == SICNumbers.NOT_A_NUMBER){
+            throw new SICParsingError("WORD operand must be a decimal integer", false);
         }
 
-        if (wordValue >= MINIMUM_INTEGER && wordValue <= MAXIMUM_INTEGER){
-            return operand;
+        else if (wordValue == SICNumbers.OUT_OF_RANGE){
+            throw new SICParsingError("WORD operand must be in the range of -8,388,608 to 8,388,607", false);
         }
 
-        else{
-            throw new SICParsingError("WORD operand must be in the range of -8,388,608 to 8,388,607");
-        }
+        this.operandValue = (int) wordValue;
+        return operand;
     }
 
     // This function validates the RESB operand.
@@ -242,22 +372,18 @@ public class ParsedLineOfCode{
     //    1.) Operand must be a positive decimal integer
     //    2.) Operand must be less than the number of possible bytes in memory(32,768).
     private String validateRESBOperand(String operand) throws SICParsingError {
-        Integer resbValue = null;
+        long resbValue = SICNumbers.decode(operand, 10, MINIMUM_RESB_VALUE, MAXIMUM_RESB_VALUE);
 
-        try{
-            resbValue = Integer.parseInt(operand);
+        if (resbValue == SICNumbers.NOT_A_NUMBER){
+            throw new SICParsingError("RESB operand must be a positive decimal integer", false);
         }
 
-        catch (NumberFormatException e) {
-            throw new SICParsingError("RESB operand must be a positive decimal integer");
-        }
-        if (resbValue >= MINIMUM_RESB_VALUE && resbValue <= MAXIMUM_RESB_VALUE){
-            return operand;
+        else if (resbValue == SICNumbers.OUT_OF_RANGE){
+            throw new SICParsingError("RESB operand must be between 0 and 32768.", false);
         }
 
-        else{
-            throw new SICParsingError("RESB operand must be between 0 and 32768.");
-        }
+        this.operandValue = (int) resbValue;
+        return operand;
     }
 
     // This function validates the RESW operand.
@@ -266,104 +392,78 @@ public class ParsedLineOfCode{
     //    1.) Operand must be a positive decimal integer
     //    2.) Operand must be less than the number of possible words in memory(10,922).
     private String validateRESWOperand(String operand) throws SICParsingError {
-        Integer reswValue = null;
-
-        try{
-            reswValue = Integer.parseInt(operand);
-        }
+        long reswValue = SICNumbers.decode(operand, 10, MINIMUM_RESW_VALUE, MAXIMUM_RESW_VALUE);
 
-        catch (NumberFormatException e) {
-            throw new SICParsingError("RESW operand must be a positive decimal integer");
+        if (reswValue == SICNumbers.NOT_A_NUMBER){
+            throw new SICParsingError("RESW operand must be a positive decimal integer", false);
         }
 
-        if (reswValue >= MINIMUM_RESW_VALUE && reswValue <= MAXIMUM_RESW_VALUE){
-            return operand;
+        else if (reswValue == SICNumbers.OUT_OF_RANGE){
+            throw new SICParsingError("RESW operand must be between 0 and 10922.", false);
         }
 
-        else{
-            throw new SICParsingError("RESW operand must be between 0 and 10922.");
-        }
+        this.operandValue = (int) reswValue;
+        return operand;
     }
 
     // This method validates the operand for all other opcodes.
     // RULES:
-    //    1.) Operand can be a string that follows label rules (see validate_label() for label rules)
-    //    2.) Operand can be a valid hex memory address string padded with "0" as the first character.
-    //           a max of 5 total characters ex. "0hhhh" (h = valid hex value)
-    //    3.) Each of the above may include the indexed addressing indicator(",X")
+    //    1.) Operand must be a string that follows label rules (see validate_label() for label rules)
+    //    2.) Operand may include the indexed addressing indicator(",X")
     //    as the last two characters in the string
+    //    3.) Hex memory addresses are not accepted
     private String validateNonspecificOperand(String operand) throws SICParsingError {
         char firstCharacter = operand.charAt(0);
-        Integer decValue = null;
-        String indexAddressingCheck = operand.substring(operand.length() - 2);
 
-        if (indexAddressingCheck.equals(",X")){
+        if (operand.endsWith(",X")){
             operand = operand.substring(0, operand.length() - 2);
         }
 
         if (Character.isAlphabetic(firstCharacter)){
             //Operand will be validated as a label
-            boolean charactersValid = operand.equals(operand.toUpperCase()) && operand.matches("[A-Z0-9]+");
-            boolean lengthValid = operand.length() <= 6;
-
-            if (charactersValid && lengthValid){
+            if (SICCharacters.isLabel(operand, 0, operand.length())){
                 return operand;
             }
 
             else{
-                throw new SICParsingError("Operand must be formatted as a label.");
+                throw new SICParsingError("Operand must be formatted as a label.", false);
             }
         }
 
-        else if (firstCharacter == 0){
-            // Operand will be validated as a hex memory address.
-            String errorMessage = "Operand memory address must be between 00000-07FFF.";
-
-            if (operand.length() > MAXIMUM_LENGTH_OF_OPERAND){
-                throw new SICParsingError(errorMessage);
-            }
-
-            try{
-                decValue = Integer.parseInt(operand, 16);
-            }
-
-            catch (NumberFormatException ne){
-                throw new SICParsingError(errorMessage);
-            }
-
-            if (decValue < MINIMUM_MEMORY_ADDRESS_DEC || decValue > MAXIMUM_MEMORY_ADDRESS_DEC){
-                throw new SICParsingError(errorMessage);
-            }
-
-            int requiredLeadingZeroes = MAXIMUM_LENGTH_OF_OPERAND - operand.length();
-
-            return "0".repeat(requiredLeadingZeroes) + operand;
+        else{
+            throw new SICParsingError("Operand must be a hex memory address or a label.", false);
         }
+    }
 
-        else{
-            throw new SICParsingError("Operand must be a hex memory address or a label.");
+    // Same test as matching "\\A\\p{ASCII}*\\z" against the characters between start and end
+    private static boolean isAscii(CharSequence text, int start, int end){
+        for (int index = start; index < end; index++){
+            if (text.charAt(index) > 0x7F){
+                return false;
+            }
         }
+        return true;
     }
 
-    private String validateOperand(String operand, String opcode) throws SICParsingError {
+    private String validateOperand(String operand, SICOpcode opcode) throws SICParsingError {
         switch (opcode){
-            case "START":
+            case START:
                 operand = validateSTARTOperand(operand);
                 break;
-            case "END":
+            case END:
                 // END opcode is not used.
                 // We will ignore it and consider the END opcode the last instruction
                 // in the assembly code program.
-            case "BYTE":
+            case BYTE:
                 operand = validateBYTEOperand(operand);
                 break;
-            case "WORD":
+            case WORD:
                 operand = validateWORDOperand(operand);
                 break;
-            case "RESB":
+            case RESB:
                 operand = validateRESBOperand(operand);
                 break;
-            case "RESW":
+            case RESW:
                 operand = validateRESWOperand(operand);
                 break;
             default:
@@ -372,58 +472,4 @@ public class ParsedLineOfCode{
 
         return operand;
     }
-
-        // This function parses and returns a BYTE character string
-    // if one exists in the line of code, otherwise it returns null
-    public String get_byte_character_string(String lineOfCode){
-        String byteCharacterString = null;
-
-        int startIndex = lineOfCode.indexOf("C'");
-
-        if (startIndex != -1){
-            byteCharacterString = lineOfCode.substring(startIndex+2);
-            int endIndex = byteCharacterString.indexOf("'");
-            if (endIndex != -1){
-                byteCharacterString = byteCharacterString.substring(0 , endIndex);
-                byteCharacterString = "C'" + byteCharacterString + "'";
-            }
-        }
-        return byteCharacterString;
-    }
-
-    // This function handles BYTE character strings.
-    // This special handling is required when there are
-    // spaces in the BYTE character string that would
-    // be tokenized otherwise.
-    public ArrayList<String> handleByteCharacterString(ArrayList<String> tokenList, String byteCharacterString){
-        ArrayList<String> parsedTokenList = new ArrayList<>();
-        try{
-            int byteOpcodeIndex = tokenList.indexOf("BYTE");
-            int tokenListLength = tokenList.size();
-
-            if (byteOpcodeIndex == 0 && tokenListLength >= 2){
-                int existsIndex = tokenList.get(byteOpcodeIndex + 1).indexOf("C'");
-
-                if (existsIndex != -1){
-                    parsedTokenList.add(tokenList.get(0));
-                    parsedTokenList.add(byteCharacterString);
-                }
-            }
-
-            else if (byteOpcodeIndex == 1 && tokenListLength >= 3){
-                int existsIndex = tokenList.get(byteOpcodeIndex + 1).indexOf("C'");
-
-                if (existsIndex != -1){
-                    parsedTokenList.add(tokenList.get(0));
-                    parsedTokenList.add(tokenList.get(1));
-                    parsedTokenList.add(byteCharacterString);
-                }
-            }
-        }
-        catch (IllegalArgumentException _){
-        }
-
-        return parsedTokenList;
-    }
 }
-
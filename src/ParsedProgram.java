@@ -0,0 +1,297 @@
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+// This class stores a parsed program as a set of primitive arrays,
+// one entry per line, instead of one ParsedLineOfCode object per line.
+// All text lives in one shared byte array of source text; each line refers
+// to its raw text, label and operand by offset and length into that array.
+// A program of a million lines is a few dozen arrays rather than tens of
+// millions of objects, and passes that walk the program read memory in order.
+//
+// Operands that validation rewrites (such as zero-padded memory addresses)
+// no longer match the source, so their text is appended after the source.
+public class ParsedProgram implements Iterable<ParsedProgram.LineView> {
+    private static final int FLAG_COMMENT = 1;
+    private static final int FLAG_INDEXED = 2;
+    private static final int NO_OPCODE = -1;
+    public static final int NO_TEXT = -1;
+    private static final int INITIAL_CAPACITY = 256;
+    private static final SICOpcode[] OPCODES = SICOpcode.values();
+    private byte[] text;
+    private int textLength;
+    private int size = 0;
+    private int[] lineNumbers = new int[INITIAL_CAPACITY];
+    private byte[] opcodes = new byte[INITIAL_CAPACITY];
+    private byte[] flags = new byte[INITIAL_CAPACITY];
+    private int[] lineOffsets = new int[INITIAL_CAPACITY];
+    private int[] lineLengths = new int[INITIAL_CAPACITY];
+    private int[] labelOffsets = new int[INITIAL_CAPACITY];
+    private int[] labelLengths = new int[INITIAL_CAPACITY];
+    private int[] operandOffsets = new int[INITIAL_CAPACITY];
+    private int[] operandLengths = new int[INITIAL_CAPACITY];
+
+    private ParsedProgram(byte[] text, int textLength){
+        this.text = text;
+        this.textLength = textLength;
+    }
+
+    // This function parses an assembly code file into a ParsedProgram.
+    // The rules and error messages are the same as ParseAssemblyCode.parse.
+    // One ParsedLineOfCode is reused as scratch space for validation.
+    public static ParsedProgram parse(Path assemblyCodeFile) throws SICParsingError {
+        byte[] contents;
+        try {
+            contents = Files.readAllBytes(assemblyCodeFile);
+        }
+
+        catch (IOException e){
+            throw new SICParsingError("Assembly Code file could not be read: " + assemblyCodeFile);
+        }
+
+        ParsedProgram program = new ParsedProgram(contents, contents.length);
+        AssemblySource source = AssemblySource.wrap(contents, contents.length);
+        SourceLine sourceLine = new SourceLine();
+        AssemblyLineLexer lexer = new AssemblyLineLexer();
+        ParsedLineOfCode lineOfCode = new ParsedLineOfCode();
+        int lineNumber = 0;
+        boolean startFound = false;
+        boolean endFound = false;
+
+        while (!endFound && source.nextLine()){
+            lineNumber += 1;
+            sourceLine.set(source, source.lineStart(), source.lineEnd());
+            lineOfCode.clear();
+            lineOfCode.setLineNumber(lineNumber);
+            lineOfCode.setUnparsedLineOfCode(source, source.lineStart(), source.lineEnd());
+
+            ParseAssemblyCode.parseLine(lineOfCode, sourceLine, lexer);
+            program.add(lineOfCode, source.lineStart(), source.lineEnd(), lexer);
+
+            if (!lineOfCode.getIsComment()){
+                endFound = ParseAssemblyCode.isEndOfProgram(lineOfCode, startFound);
+                startFound = true;
+            }
+        }
+
+        ParseAssemblyCode.checkEndFound(endFound);
+        System.out.println("Parsing complete.");
+
+        return program;
+    }
+
+    // Records one validated line. Token offsets from the lexer are relative
+    // to the start of the line.
+    private void add(ParsedLineOfCode lineOfCode, int lineStart, int lineEnd, AssemblyLineLexer lexer){
+        ensureCapacity(size + 1);
+        lineNumbers[size] = lineOfCode.getLineNumber();
+        lineOffsets[size] = lineStart;
+        lineLengths[size] = lineEnd - lineStart;
+        opcodes[size] = (byte) (lineOfCode.getSICOpcode() == null ? NO_OPCODE : lineOfCode.getSICOpcode().ordinal());
+        flags[size] = (byte) ((lineOfCode.getIsComment() ? FLAG_COMMENT : 0) | (lineOfCode.getIsIndexed() ? FLAG_INDEXED : 0));
+        labelOffsets[size] = NO_TEXT;
+        labelLengths[size] = 0;
+        operandOffsets[size] = NO_TEXT;
+        operandLengths[size] = 0;
+
+        if (!lineOfCode.getIsComment()){
+            int token = 0;
+            if (lineOfCode.getLabel() != null){
+                labelOffsets[size] = lineStart + lexer.getTokenStart(0);
+                labelLengths[size] = lexer.getTokenEnd(0) - lexer.getTokenStart(0);
+                token = 1;
+            }
+
+            String operand = lineOfCode.getOperand();
+            if (operand != null){
+                int operandStart = lineStart + lexer.getTokenStart(token + 1);
+                if (matchesText(operandStart, lexer.getTokenEnd(token + 1) - lexer.getTokenStart(token + 1), operand)){
+                    operandOffsets[size] = operandStart;
+                }
+                else{
+                    operandOffsets[size] = appendText(operand);
+                }
+                operandLengths[size] = operand.length();
+            }
+        }
+
+        size++;
+    }
+
+    // True if the operand is the first characters of the token, which is the
+    // case unless validation rewrote it (an ",X" suffix is simply shorter).
+    private boolean matchesText(int offset, int tokenLength, String operand){
+        if (operand.length() > tokenLength){
+            return false;
+        }
+        for (int index = 0; index < operand.length(); index++){
+            if (text[offset + index] != operand.charAt(index)){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int appendText(String value){
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (textLength + bytes.length > text.length){
+            text = Arrays.copyOf(text, Math.max(text.length * 2, textLength + bytes.length));
+        }
+        System.arraycopy(bytes, 0, text, textLength, bytes.length);
+        textLength += bytes.length;
+        return textLength - bytes.length;
+    }
+
+    private void ensureCapacity(int capacity){
+        if (capacity <= lineNumbers.length){
+            return;
+        }
+        int newCapacity = Math.max(capacity, lineNumbers.length * 2);
+        lineNumbers = Arrays.copyOf(lineNumbers, newCapacity);
+        opcodes = Arrays.copyOf(opcodes, newCapacity);
+        flags = Arrays.copyOf(flags, newCapacity);
+        lineOffsets = Arrays.copyOf(lineOffsets, newCapacity);
+        lineLengths = Arrays.copyOf(lineLengths, newCapacity);
+        labelOffsets = Arrays.copyOf(labelOffsets, newCapacity);
+        labelLengths = Arrays.copyOf(labelLengths, newCapacity);
+        operandOffsets = Arrays.copyOf(operandOffsets, newCapacity);
+        operandLengths = Arrays.copyOf(operandLengths, newCapacity);
+    }
+
+    public int size(){
+        return size;
+    }
+
+    // The shared text. Offsets returned by this class index into it.
+    public byte[] getText(){
+        return text;
+    }
+
+    public int getLineNumber(int line){
+        return lineNumbers[line];
+    }
+
+    public boolean getIsComment(int line){
+        return (flags[line] & FLAG_COMMENT) != 0;
+    }
+
+    public boolean getIsIndexed(int line){
+        return (flags[line] & FLAG_INDEXED) != 0;
+    }
+
+    public SICOpcode getSICOpcode(int line){
+        return opcodes[line] == NO_OPCODE ? null : OPCODES[opcodes[line]];
+    }
+
+    public int getLineOffset(int line){
+        return lineOffsets[line];
+    }
+
+    public int getLineLength(int line){
+        return lineLengths[line];
+    }
+
+    // NO_TEXT if the line has no label
+    public int getLabelOffset(int line){
+        return labelOffsets[line];
+    }
+
+    public int getLabelLength(int line){
+        return labelLengths[line];
+    }
+
+    // NO_TEXT if the line has no operand
+    public int getOperandOffset(int line){
+        return operandOffsets[line];
+    }
+
+    public int getOperandLength(int line){
+        return operandLengths[line];
+    }
+
+    private String text(int offset, int length){
+        return offset == NO_TEXT ? null : new String(text, offset, length, StandardCharsets.UTF_8);
+    }
+
+    // This function returns a reusable view positioned on the given line.
+    public LineView view(int line){
+        LineView view = new LineView();
+        view.moveTo(line);
+        return view;
+    }
+
+    // Iterates with a single flyweight view that moves from line to line.
+    // Copy anything that must outlive the current iteration step.
+    @Override
+    public Iterator<LineView> iterator(){
+        LineView view = new LineView();
+        return new Iterator<>() {
+            private int next = 0;
+
+            @Override
+            public boolean hasNext(){
+                return next < size;
+            }
+
+            @Override
+            public LineView next(){
+                if (next >= size){
+                    throw new NoSuchElementException();
+                }
+                view.moveTo(next++);
+                return view;
+            }
+        };
+    }
+
+    // A flyweight with the same getters as ParsedLineOfCode, backed by
+    // the arrays of the program. Strings are only created when asked for.
+    public class LineView {
+        private int line;
+
+        public void moveTo(int line){
+            this.line = line;
+        }
+
+        public int getIndex(){
+            return line;
+        }
+
+        public int getLineNumber(){
+            return lineNumbers[line];
+        }
+
+        public String getUnparsedLineOfCode(){
+            return text(lineOffsets[line], lineLengths[line]);
+        }
+
+        public boolean getIsComment(){
+            return ParsedProgram.this.getIsComment(line);
+        }
+
+        public boolean getIsIndexed(){
+            return ParsedProgram.this.getIsIndexed(line);
+        }
+
+        public String getLabel(){
+            return text(labelOffsets[line], labelLengths[line]);
+        }
+
+        public String getOpcode(){
+            SICOpcode opcode = getSICOpcode();
+            return opcode == null ? null : opcode.name();
+        }
+
+        public SICOpcode getSICOpcode(){
+            return ParsedProgram.this.getSICOpcode(line);
+        }
+
+        public String getOperand(){
+            return text(operandOffsets[line], operandLengths[line]);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+// This class holds precomputed character class tables for the ASCII range.
+// Checking a character is a single array lookup, so validating a token
+// is one loop over its characters with no regular expressions.
+public final class SICCharacters {
+    public static final int UPPERCASE = 1;
+    public static final int DIGIT = 2;
+    public static final int HEX_DIGIT = 4;
+    public static final int LABEL = UPPERCASE | DIGIT;
+    private static final byte[] CHARACTER_CLASSES = new byte[128];
+    private static final byte[] HEX_VALUES = new byte[128];
+
+    static {
+        for (char character = 'A'; character <= 'Z'; character++){
+            CHARACTER_CLASSES[character] |= UPPERCASE;
+        }
+        for (char character = '0'; character <= '9'; character++){
+            CHARACTER_CLASSES[character] |= DIGIT | HEX_DIGIT;
+            HEX_VALUES[character] = (byte) (character - '0');
+        }
+        for (char character = 'A'; character <= 'F'; character++){
+            CHARACTER_CLASSES[character] |= HEX_DIGIT;
+            HEX_VALUES[character] = (byte) (character - 'A' + 10);
+        }
+    }
+
+    private SICCharacters(){
+    }
+
+    // This function returns true if the character belongs to any of the given classes
+    public static boolean is(char character, int characterClass){
+        return character < 128 && (CHARACTER_CLASSES[character] & characterClass) != 0;
+    }
+
+    public static boolean isUppercase(char character){
+        return is(character, UPPERCASE);
+    }
+
+    public static boolean isLabelCharacter(char character){
+        return is(character, LABEL);
+    }
+
+    public static boolean isHexDigit(char character){
+        return is(character, HEX_DIGIT);
+    }
+
+    public static boolean isDigit(char character){
+        return is(character, DIGIT);
+    }
+
+    // Only valid for characters where isHexDigit() is true
+    public static int hexValue(char character){
+        return HEX_VALUES[character];
+    }
+
+    // This function checks that the characters between start and end follow the label rules:
+    // 1) 1 to 6 characters in length
+    // 2) The first character is uppercase (A-Z)
+    // 3) The remaining characters are uppercase (A-Z) or numeric (0-9)
+    public static boolean isLabel(CharSequence text, int start, int end){
+        int length = end - start;
+        if (length < 1 || length > 6 || !isUppercase(text.charAt(start))){
+            return false;
+        }
+        for (int index = start + 1; index < end; index++){
+            if (!isLabelCharacter(text.charAt(index))){
+                return false;
+            }
+        }
+        return true;
+    }
+}
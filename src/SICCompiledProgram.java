@@ -0,0 +1,97 @@
+import java.lang.invoke.MethodHandle;
+
+// This class runs a program compiled by SICCompiler on its SICSimulator.
+// run() behaves exactly like SICSimulator.run(): the same registers, memory,
+// instruction count and stop reason after the same number of steps.
+// Whenever the compiled code exits without halting, the simulator runs one
+// instruction and the compiled code takes over again. The simulator runs the
+// whole program instead when:
+//    1.) It was too large to compile
+//    2.) Breakpoints or a profiler are set, since the compiled code doesn't check them
+//    3.) The program stored over one of its own instructions
+public class SICCompiledProgram {
+    private final SICSimulator simulator;
+    private final MethodHandle code;
+    private final byte[] storeConflicts;
+    private final int[] state = new int[SICCompiler.STATE_LENGTH];
+    private final long[] counters = new long[2];
+    private boolean isCodeModified = false;
+
+    SICCompiledProgram(SICSimulator simulator, MethodHandle code, byte[] storeConflicts){
+        this.simulator = simulator;
+        this.code = code;
+        this.storeConflicts = storeConflicts;
+    }
+
+    public SICSimulator.StopReason run(long maximumSteps){
+        if (!getIsCompiled() || simulator.hasBreakpoints() || simulator.hasProfiler()){
+            return simulator.run(maximumSteps);
+        }
+
+        long remainingSteps = maximumSteps;
+        while (remainingSteps > 0){
+            int exitCode = runCompiledCode(remainingSteps);
+            remainingSteps -= counters[SICCompiler.COUNTER_STEPS];
+
+            if (exitCode == SICCompiler.EXIT_HALTED){
+                return SICSimulator.StopReason.HALTED;
+            }
+            if (exitCode == SICCompiler.EXIT_CODE_MODIFIED){
+                isCodeModified = true;
+                return simulator.run(remainingSteps);
+            }
+            if (remainingSteps == 0){
+                break;
+            }
+
+            long instructionCount = simulator.getInstructionCount();
+            SICSimulator.StopReason stopReason = simulator.run(1);
+            remainingSteps -= simulator.getInstructionCount() - instructionCount;
+            if (stopReason != SICSimulator.StopReason.STEP_LIMIT){
+                return stopReason;
+            }
+        }
+        return SICSimulator.StopReason.STEP_LIMIT;
+    }
+
+    private int runCompiledCode(long maximumSteps){
+        state[SICCompiler.STATE_A] = simulator.getA();
+        state[SICCompiler.STATE_X] = simulator.getX();
+        state[SICCompiler.STATE_L] = simulator.getL();
+        state[SICCompiler.STATE_PC] = simulator.getPC();
+        state[SICCompiler.STATE_SW] = simulator.getSW();
+        counters[SICCompiler.COUNTER_STEPS] = 0;
+        counters[SICCompiler.COUNTER_LIMIT] = maximumSteps;
+
+        int exitCode;
+        try {
+            exitCode = (int) code.invokeExact(state, simulator.getMemory(), simulator.getDevices(), storeConflicts, counters);
+        }
+
+        catch (RuntimeException | Error e){
+            // Thrown by a device
+            throw e;
+        }
+
+        catch (Throwable e){
+            throw new IllegalStateException(e);
+        }
+
+        simulator.setA(state[SICCompiler.STATE_A]);
+        simulator.setX(state[SICCompiler.STATE_X]);
+        simulator.setL(state[SICCompiler.STATE_L]);
+        simulator.setPC(state[SICCompiler.STATE_PC]);
+        simulator.setSW(state[SICCompiler.STATE_SW]);
+        simulator.addInstructionCount(counters[SICCompiler.COUNTER_STEPS]);
+        return exitCode;
+    }
+
+    // False if the program runs in the simulator
+    public boolean getIsCompiled(){
+        return code != null && !isCodeModified;
+    }
+
+    public SICSimulator getSimulator(){
+        return simulator;
+    }
+}
@@ -0,0 +1,607 @@
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.Arrays;
+import java.util.List;
+
+// This class compiles a loaded SIC program to JVM bytecode, so the JIT turns it
+// into machine code instead of running it through SICSimulator's decode loop.
+//
+// The instructions of the program are split into basic blocks, which start at
+// labels, at J*/JSUB targets, after every jump, and wherever instructions stop
+// being contiguous. All blocks go into one static method of a hidden class:
+//    1.) The registers live in locals, memory is the simulator's byte array
+//    2.) A jump to a block is a goto; a jump whose target is only known at run
+//        time (RSUB, indexed jumps) goes through a lookupswitch on PC
+//    3.) Each block checks the step limit once, when it is entered
+//    4.) Anything the compiled code doesn't handle exits to SICCompiledProgram,
+//        which lets the simulator run that instruction: a PC that isn't a block,
+//        faults, and the last few steps before the limit
+//    5.) A store that would overwrite an instruction exits for good, because
+//        the compiled code would no longer match memory
+//
+// The method is limited to MAXIMUM_CODE_LENGTH bytes, below HotSpot's huge method
+// limit; a larger program is not compiled, and SICCompiledProgram runs it in the simulator.
+public final class SICCompiler {
+    static final int MAXIMUM_CODE_LENGTH = 8000;
+    // Exit codes of the compiled method
+    static final int EXIT_FALLBACK = 0;
+    static final int EXIT_HALTED = 1;
+    static final int EXIT_CODE_MODIFIED = 2;
+    // Indexes into the state array passed to the compiled method
+    static final int STATE_A = 0;
+    static final int STATE_X = 1;
+    static final int STATE_L = 2;
+    static final int STATE_PC = 3;
+    static final int STATE_SW = 4;
+    static final int STATE_LENGTH = 5;
+    // Indexes into the counter array: steps run (out) and the step limit (in)
+    static final int COUNTER_STEPS = 0;
+    static final int COUNTER_LIMIT = 1;
+    // Bits of the store conflict map: a byte or word store at the address would change an instruction
+    static final byte BYTE_STORE_CONFLICT = 1;
+    static final byte WORD_STORE_CONFLICT = 2;
+    static final MethodType RUN_TYPE = MethodType.methodType(int.class,
+            int[].class, byte[].class, SICDevice[].class, byte[].class, long[].class);
+    private static final String CLASS_NAME = "SICCompiledCode";
+    private static final String METHOD_NAME = "run";
+    private static final String RUN_DESCRIPTOR = "([I[B[LSICDevice;[B[J)I";
+    private static final String SIMULATOR = "SICSimulator";
+    private static final String DEVICE_DESCRIPTOR = "(I[LSICDevice;[BI)I";
+    private static final int WORD_MASK = 0xFFFFFF;
+    private static final int CONDITION_MASK = 0xC0;
+    private static final int ADDRESS_MASK = 0x7FFF;
+    private static final int INDEXED_ADDRESSING_BIT = 0x8000;
+    private static final int MAXIMUM_STACK = 8;
+    // Locals of the compiled method; the first five are its parameters
+    private static final int STATE = 0;
+    private static final int MEMORY = 1;
+    private static final int DEVICES = 2;
+    private static final int CONFLICTS = 3;
+    private static final int COUNTERS = 4;
+    private static final int A = 5;
+    private static final int X = 6;
+    private static final int L = 7;
+    private static final int PC = 8;
+    private static final int SW = 9;
+    private static final int TARGET = 10;
+    private static final int EXIT_CODE = 11;
+    private static final int STEPS = 12;
+    private static final int LIMIT = 14;
+    private static final int DIVISOR = 16;
+    private static final int LOCAL_COUNT = 17;
+    private final ClassFileWriter writer = new ClassFileWriter();
+    private final int[] addresses;
+    private final SICOpcode[] opcodes;
+    private final int[] operands;
+    private final boolean[] isLeader;
+    private final int[] labels;
+    // The instruction index at each address, or -1
+    private final int[] instructionIndexes = new int[SICSimulator.MEMORY_SIZE];
+    private final byte[] storeConflicts = new byte[SICSimulator.MEMORY_SIZE];
+    private final int dispatchLabel;
+    private final int exitLabel;
+
+    private SICCompiler(int[] addresses, int instructionCount, byte[] memory){
+        this.addresses = addresses;
+        this.opcodes = new SICOpcode[instructionCount];
+        this.operands = new int[instructionCount];
+        this.isLeader = new boolean[instructionCount];
+        this.labels = new int[instructionCount];
+        this.dispatchLabel = writer.newLabel();
+        this.exitLabel = writer.newLabel();
+        Arrays.fill(instructionIndexes, -1);
+
+        for (int index = 0; index < instructionCount; index++){
+            int address = addresses[index];
+            opcodes[index] = SICOpcode.fromMachineCode(memory[address]);
+            operands[index] = ((memory[address + 1] & 0xFF) << 8) | (memory[address + 2] & 0xFF);
+            instructionIndexes[address] = index;
+            for (int byteAddress = address; byteAddress < address + 3; byteAddress++){
+                storeConflicts[byteAddress] |= BYTE_STORE_CONFLICT;
+                for (int wordAddress = Math.max(0, byteAddress - 2); wordAddress <= byteAddress; wordAddress++){
+                    storeConflicts[wordAddress] |= WORD_STORE_CONFLICT;
+                }
+            }
+        }
+    }
+
+    // This function compiles the program pass1 describes. It must already be
+    // loaded into the simulator (see SICSimulator.load), which the compiled
+    // program runs on: its memory, registers, devices and instruction count.
+    public static SICCompiledProgram compile(AssemblerPass1 pass1, SICSimulator simulator){
+        List<ParsedLineOfCode> parsedCodeList = pass1.getParsedCodeList();
+        byte[] memory = simulator.getMemory();
+        int[] addresses = new int[parsedCodeList.size()];
+        boolean[] isLabeled = new boolean[parsedCodeList.size()];
+        int instructionCount = 0;
+
+        for (int index = 0; index < parsedCodeList.size(); index++){
+            int address = pass1.getAddress(index);
+            ParsedLineOfCode lineOfCode = parsedCodeList.get(index);
+            if (address == AssemblerPass1.NO_ADDRESS || address > SICSimulator.MEMORY_SIZE - 3
+                    || lineOfCode.getSICOpcode() == null || lineOfCode.getSICOpcode().isDirective()){
+                continue;
+            }
+            // The program as loaded must still hold the instruction
+            if (SICOpcode.fromMachineCode(memory[address]) != lineOfCode.getSICOpcode()){
+                continue;
+            }
+            isLabeled[instructionCount] = lineOfCode.getLabel() != null && !lineOfCode.getLabel().isEmpty();
+            addresses[instructionCount++] = address;
+        }
+
+        SICCompiler compiler = new SICCompiler(addresses, instructionCount, memory);
+        MethodHandle code = compiler.generate(isLabeled, simulator.getPC());
+        return new SICCompiledProgram(simulator, code, compiler.storeConflicts);
+    }
+
+    // Returns the compiled method, or null if the program is too large
+    private MethodHandle generate(boolean[] isLabeled, int entryAddress){
+        int instructionCount = opcodes.length;
+        if (instructionCount == 0){
+            return null;
+        }
+        findLeaders(isLabeled, entryAddress);
+
+        writeEntry();
+        int index = 0;
+        while (index < instructionCount){
+            index = writeBlock(index);
+        }
+        writeDispatch();
+        writeExit();
+
+        if (writer.getCodeLength() > MAXIMUM_CODE_LENGTH){
+            return null;
+        }
+
+        byte[] classFile = writer.toClassFile(CLASS_NAME, METHOD_NAME, RUN_DESCRIPTOR, MAXIMUM_STACK, LOCAL_COUNT);
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup().defineHiddenClass(classFile, true);
+            return lookup.findStatic(lookup.lookupClass(), METHOD_NAME, RUN_TYPE);
+        }
+
+        catch (ReflectiveOperationException e){
+            throw new IllegalStateException("Compiled SIC program could not be loaded.", e);
+        }
+    }
+
+    private void findLeaders(boolean[] isLabeled, int entryAddress){
+        for (int index = 0; index < opcodes.length; index++){
+            int address = addresses[index];
+            if (isLabeled[index] || address == entryAddress || index == 0 || addresses[index - 1] + 3 != address
+                    || isControlTransfer(opcodes[index - 1])){
+                isLeader[index] = true;
+            }
+            if (isControlTransfer(opcodes[index]) && (operands[index] & INDEXED_ADDRESSING_BIT) == 0){
+                int target = instructionIndexes[operands[index] & ADDRESS_MASK];
+                if (target >= 0){
+                    isLeader[target] = true;
+                }
+            }
+        }
+        for (int index = 0; index < opcodes.length; index++){
+            labels[index] = isLeader[index] ? writer.newLabel() : -1;
+        }
+    }
+
+    private static boolean isControlTransfer(SICOpcode opcode){
+        switch (opcode){
+            case J:
+            case JEQ:
+            case JGT:
+            case JLT:
+            case JSUB:
+            case RSUB:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    // Loads the registers and counters into locals and dispatches on PC
+    private void writeEntry(){
+        int[] registers = {A, X, L, PC, SW};
+        int[] stateIndexes = {STATE_A, STATE_X, STATE_L, STATE_PC, STATE_SW};
+        for (int index = 0; index < registers.length; index++){
+            writer.local(ClassFileWriter.ALOAD, STATE);
+            writer.pushInt(stateIndexes[index]);
+            writer.op(ClassFileWriter.IALOAD);
+            writer.local(ClassFileWriter.ISTORE, registers[index]);
+        }
+        writer.local(ClassFileWriter.ALOAD, COUNTERS);
+        writer.pushInt(COUNTER_STEPS);
+        writer.op(ClassFileWriter.LALOAD);
+        writer.local(ClassFileWriter.LSTORE, STEPS);
+        writer.local(ClassFileWriter.ALOAD, COUNTERS);
+        writer.pushInt(COUNTER_LIMIT);
+        writer.op(ClassFileWriter.LALOAD);
+        writer.local(ClassFileWriter.LSTORE, LIMIT);
+        for (int local : new int[]{TARGET, EXIT_CODE, DIVISOR}){
+            writer.pushInt(0);
+            writer.local(ClassFileWriter.ISTORE, local);
+        }
+        writer.jump(ClassFileWriter.GOTO, dispatchLabel);
+    }
+
+    // Writes the block that starts at instruction first and returns the index after it
+    private int writeBlock(int first){
+        int last = first;
+        while (!isControlTransfer(opcodes[last]) && last + 1 < opcodes.length && !isLeader[last + 1]){
+            last++;
+        }
+        int blockLength = last - first + 1;
+
+        // if (steps + blockLength > limit) exit at the start of the block
+        writer.bind(labels[first]);
+        int withinLimit = writer.newLabel();
+        writer.local(ClassFileWriter.LLOAD, STEPS);
+        writer.pushLong(blockLength);
+        writer.op(ClassFileWriter.LADD);
+        writer.local(ClassFileWriter.LLOAD, LIMIT);
+        writer.op(ClassFileWriter.LCMP);
+        writer.jump(ClassFileWriter.IFLE, withinLimit);
+        writeExit(addresses[first], EXIT_FALLBACK, 0);
+        writer.bind(withinLimit);
+        writer.local(ClassFileWriter.LLOAD, STEPS);
+        writer.pushLong(blockLength);
+        writer.op(ClassFileWriter.LADD);
+        writer.local(ClassFileWriter.LSTORE, STEPS);
+
+        for (int index = first; index <= last; index++){
+            if (!writeInstruction(index, last - index + 1)){
+                // The instruction always faults; the rest of the block is unreachable
+                return last + 1;
+            }
+        }
+
+        // Fall through to the next instruction, unless it is the next block written
+        SICOpcode opcode = opcodes[last];
+        if (opcode != SICOpcode.J && opcode != SICOpcode.JSUB && opcode != SICOpcode.RSUB){
+            int next = addresses[last] + 3;
+            if (last + 1 >= opcodes.length || addresses[last + 1] != next){
+                writeJump(next);
+            }
+        }
+        return last + 1;
+    }
+
+    // Writes one instruction. remaining is the number of steps of the block not
+    // yet run, counting this one, which an exit before the instruction gives back.
+    // Returns false if the instruction can only fault.
+    private boolean writeInstruction(int index, int remaining){
+        SICOpcode opcode = opcodes[index];
+        int address = addresses[index];
+        int target = operands[index] & ADDRESS_MASK;
+        boolean isIndexed = (operands[index] & INDEXED_ADDRESSING_BIT) != 0;
+        int accessLength = SICSimulator.getAccessLength(opcode.getMachineCode());
+
+        if (isIndexed){
+            // target = X + address, checked against the end of memory like the
+            // simulator does, even for a jump that isn't taken
+            int inside = writer.newLabel();
+            writer.local(ClassFileWriter.ILOAD, X);
+            writer.pushInt(target);
+            writer.op(ClassFileWriter.IADD);
+            writer.local(ClassFileWriter.ISTORE, TARGET);
+            writer.local(ClassFileWriter.ILOAD, TARGET);
+            writer.pushInt(SICSimulator.MEMORY_SIZE - accessLength);
+            writer.jump(ClassFileWriter.IF_ICMPLE, inside);
+            writeExit(address, EXIT_FALLBACK, remaining);
+            writer.bind(inside);
+        }
+        else if (target + accessLength > SICSimulator.MEMORY_SIZE){
+            writeExit(address, EXIT_FALLBACK, remaining);
+            return false;
+        }
+
+        switch (opcode){
+            case ADD:
+                writeWordOperation(isIndexed, target, ClassFileWriter.IADD, true);
+                break;
+            case AND:
+                writeWordOperation(isIndexed, target, ClassFileWriter.IAND, false);
+                break;
+            case OR:
+                writeWordOperation(isIndexed, target, ClassFileWriter.IOR, false);
+                break;
+            case SUB:
+                writeWordOperation(isIndexed, target, ClassFileWriter.ISUB, true);
+                break;
+            case MUL:
+                writer.local(ClassFileWriter.ILOAD, A);
+                writer.invokeStatic(SIMULATOR, "signed", "(I)I");
+                writeLoadWord(isIndexed, target);
+                writer.invokeStatic(SIMULATOR, "signed", "(I)I");
+                writer.op(ClassFileWriter.IMUL);
+                writer.pushInt(WORD_MASK);
+                writer.op(ClassFileWriter.IAND);
+                writer.local(ClassFileWriter.ISTORE, A);
+                break;
+            case DIV:
+                // A zero divisor exits, so the simulator reports it
+                int nonzero = writer.newLabel();
+                writeLoadWord(isIndexed, target);
+                writer.invokeStatic(SIMULATOR, "signed", "(I)I");
+                writer.local(ClassFileWriter.ISTORE, DIVISOR);
+                writer.local(ClassFileWriter.ILOAD, DIVISOR);
+                writer.jump(ClassFileWriter.IFNE, nonzero);
+                writeExit(address, EXIT_FALLBACK, remaining);
+                writer.bind(nonzero);
+                writer.local(ClassFileWriter.ILOAD, A);
+                writer.invokeStatic(SIMULATOR, "signed", "(I)I");
+                writer.local(ClassFileWriter.ILOAD, DIVISOR);
+                writer.op(ClassFileWriter.IDIV);
+                writer.pushInt(WORD_MASK);
+                writer.op(ClassFileWriter.IAND);
+                writer.local(ClassFileWriter.ISTORE, A);
+                break;
+            case COMP:
+                writer.local(ClassFileWriter.ILOAD, SW);
+                writer.local(ClassFileWriter.ILOAD, A);
+                writeLoadWord(isIndexed, target);
+                writer.invokeStatic(SIMULATOR, "compare", "(III)I");
+                writer.local(ClassFileWriter.ISTORE, SW);
+                break;
+            case TIX:
+                writer.local(ClassFileWriter.ILOAD, X);
+                writer.pushInt(1);
+                writer.op(ClassFileWriter.IADD);
+                writer.pushInt(WORD_MASK);
+                writer.op(ClassFileWriter.IAND);
+                writer.local(ClassFileWriter.ISTORE, X);
+                writer.local(ClassFileWriter.ILOAD, SW);
+                writer.local(ClassFileWriter.ILOAD, X);
+                writeLoadWord(isIndexed, target);
+                writer.invokeStatic(SIMULATOR, "compare", "(III)I");
+                writer.local(ClassFileWriter.ISTORE, SW);
+                break;
+            case LDA:
+                writeLoadWord(isIndexed, target);
+                writer.local(ClassFileWriter.ISTORE, A);
+                break;
+            case LDL:
+                writeLoadWord(isIndexed, target);
+                writer.local(ClassFileWriter.ISTORE, L);
+                break;
+            case LDX:
+                writeLoadWord(isIndexed, target);
+                writer.local(ClassFileWriter.ISTORE, X);
+                break;
+            case LDCH:
+                writer.local(ClassFileWriter.ILOAD, A);
+                writer.pushInt(0xFFFF00);
+                writer.op(ClassFileWriter.IAND);
+                writer.local(ClassFileWriter.ALOAD, MEMORY);
+                writeTarget(isIndexed, target);
+                writer.op(ClassFileWriter.BALOAD);
+                writer.pushInt(0xFF);
+                writer.op(ClassFileWriter.IAND);
+                writer.op(ClassFileWriter.IOR);
+                writer.local(ClassFileWriter.ISTORE, A);
+                break;
+            case STA:
+                writeStoreWord(index, remaining, isIndexed, target, A);
+                break;
+            case STL:
+                writeStoreWord(index, remaining, isIndexed, target, L);
+                break;
+            case STSW:
+                writeStoreWord(index, remaining, isIndexed, target, SW);
+                break;
+            case STX:
+                writeStoreWord(index, remaining, isIndexed, target, X);
+                break;
+            case STCH:
+                writeStoreConflictCheck(index, remaining, isIndexed, target, BYTE_STORE_CONFLICT);
+                writer.local(ClassFileWriter.ALOAD, MEMORY);
+                writeTarget(isIndexed, target);
+                writer.local(ClassFileWriter.ILOAD, A);
+                writer.op(ClassFileWriter.I2B);
+                writer.op(ClassFileWriter.BASTORE);
+                break;
+            case TD:
+                writeDeviceCall(isIndexed, target, SW, "testDevice");
+                break;
+            case RD:
+                writeDeviceCall(isIndexed, target, A, "readDevice");
+                break;
+            case WD:
+                writer.local(ClassFileWriter.ILOAD, A);
+                writer.local(ClassFileWriter.ALOAD, DEVICES);
+                writer.local(ClassFileWriter.ALOAD, MEMORY);
+                writeTarget(isIndexed, target);
+                writer.invokeStatic(SIMULATOR, "writeDevice", "(I[LSICDevice;[BI)V");
+                break;
+            case J:
+                writeJump(isIndexed, target, address, true);
+                break;
+            case JSUB:
+                writer.pushInt(address + 3);
+                writer.local(ClassFileWriter.ISTORE, L);
+                writeJump(isIndexed, target, address, false);
+                break;
+            case RSUB:
+                writer.local(ClassFileWriter.ILOAD, L);
+                writer.local(ClassFileWriter.ISTORE, PC);
+                writer.jump(ClassFileWriter.GOTO, dispatchLabel);
+                break;
+            case JEQ:
+            case JGT:
+            case JLT:
+                int notTaken = writer.newLabel();
+                int condition = opcode == SICOpcode.JEQ ? SICSimulator.CONDITION_EQUAL
+                        : opcode == SICOpcode.JGT ? SICSimulator.CONDITION_GREATER : SICSimulator.CONDITION_LESS;
+                writer.local(ClassFileWriter.ILOAD, SW);
+                writer.pushInt(CONDITION_MASK);
+                writer.op(ClassFileWriter.IAND);
+                writer.pushInt(condition);
+                writer.jump(ClassFileWriter.IF_ICMPNE, notTaken);
+                writeJump(isIndexed, target, address, false);
+                writer.bind(notTaken);
+                break;
+            default:
+                throw new IllegalStateException("Opcode has no machine code: " + opcode);
+        }
+        return true;
+    }
+
+    private void writeTarget(boolean isIndexed, int target){
+        if (isIndexed){
+            writer.local(ClassFileWriter.ILOAD, TARGET);
+        }
+        else{
+            writer.pushInt(target);
+        }
+    }
+
+    private void writeLoadWord(boolean isIndexed, int target){
+        writer.local(ClassFileWriter.ALOAD, MEMORY);
+        writeTarget(isIndexed, target);
+        writer.invokeStatic(SIMULATOR, "word", "([BI)I");
+    }
+
+    // A = A <operation> word, masked to 24 bits if it can carry
+    private void writeWordOperation(boolean isIndexed, int target, int operation, boolean isMasked){
+        writer.local(ClassFileWriter.ILOAD, A);
+        writeLoadWord(isIndexed, target);
+        writer.op(operation);
+        if (isMasked){
+            writer.pushInt(WORD_MASK);
+            writer.op(ClassFileWriter.IAND);
+        }
+        writer.local(ClassFileWriter.ISTORE, A);
+    }
+
+    private void writeStoreWord(int index, int remaining, boolean isIndexed, int target, int register){
+        writeStoreConflictCheck(index, remaining, isIndexed, target, WORD_STORE_CONFLICT);
+        writer.local(ClassFileWriter.ALOAD, MEMORY);
+        writeTarget(isIndexed, target);
+        writer.local(ClassFileWriter.ILOAD, register);
+        writer.invokeStatic(SIMULATOR, "storeWord", "([BII)V");
+    }
+
+    // A store over an instruction exits before it is done, and the simulator
+    // runs the program from there on
+    private void writeStoreConflictCheck(int index, int remaining, boolean isIndexed, int target, byte conflict){
+        if (!isIndexed){
+            if ((storeConflicts[target] & conflict) != 0){
+                writeExit(addresses[index], EXIT_CODE_MODIFIED, remaining);
+            }
+            return;
+        }
+        int noConflict = writer.newLabel();
+        writer.local(ClassFileWriter.ALOAD, CONFLICTS);
+        writer.local(ClassFileWriter.ILOAD, TARGET);
+        writer.op(ClassFileWriter.BALOAD);
+        writer.pushInt(conflict);
+        writer.op(ClassFileWriter.IAND);
+        writer.jump(ClassFileWriter.IFEQ, noConflict);
+        writeExit(addresses[index], EXIT_CODE_MODIFIED, remaining);
+        writer.bind(noConflict);
+    }
+
+    // register = SICSimulator.<method>(register, devices, memory, target)
+    private void writeDeviceCall(boolean isIndexed, int target, int register, String method){
+        writer.local(ClassFileWriter.ILOAD, register);
+        writer.local(ClassFileWriter.ALOAD, DEVICES);
+        writer.local(ClassFileWriter.ALOAD, MEMORY);
+        writeTarget(isIndexed, target);
+        writer.invokeStatic(SIMULATOR, method, DEVICE_DESCRIPTOR);
+        writer.local(ClassFileWriter.ISTORE, register);
+    }
+
+    // A jump to the target of instruction at address. Like the simulator,
+    // J to itself halts.
+    private void writeJump(boolean isIndexed, int target, int address, boolean isHaltingJump){
+        if (!isIndexed){
+            if (isHaltingJump && target == address){
+                writeExit(target, EXIT_HALTED, 0);
+            }
+            else{
+                writeJump(target);
+            }
+            return;
+        }
+
+        if (isHaltingJump){
+            int elsewhere = writer.newLabel();
+            writer.local(ClassFileWriter.ILOAD, TARGET);
+            writer.pushInt(address);
+            writer.jump(ClassFileWriter.IF_ICMPNE, elsewhere);
+            writeExit(address, EXIT_HALTED, 0);
+            writer.bind(elsewhere);
+        }
+        writer.local(ClassFileWriter.ILOAD, TARGET);
+        writer.local(ClassFileWriter.ISTORE, PC);
+        writer.jump(ClassFileWriter.GOTO, dispatchLabel);
+    }
+
+    // A jump to a known address: straight to its block if it starts one
+    private void writeJump(int address){
+        int index = address < SICSimulator.MEMORY_SIZE ? instructionIndexes[address] : -1;
+        if (index >= 0 && isLeader[index]){
+            writer.jump(ClassFileWriter.GOTO, labels[index]);
+            return;
+        }
+        writer.pushInt(address);
+        writer.local(ClassFileWriter.ISTORE, PC);
+        writer.jump(ClassFileWriter.GOTO, dispatchLabel);
+    }
+
+    // Exits with PC at address, giving back the steps of the block that didn't run
+    private void writeExit(int address, int exitCode, int uncountedSteps){
+        if (uncountedSteps > 0){
+            writer.local(ClassFileWriter.LLOAD, STEPS);
+            writer.pushLong(uncountedSteps);
+            writer.op(ClassFileWriter.LSUB);
+            writer.local(ClassFileWriter.LSTORE, STEPS);
+        }
+        writer.pushInt(address);
+        writer.local(ClassFileWriter.ISTORE, PC);
+        writer.pushInt(exitCode);
+        writer.local(ClassFileWriter.ISTORE, EXIT_CODE);
+        writer.jump(ClassFileWriter.GOTO, exitLabel);
+    }
+
+    // switch (pc): every block, or an exit for the simulator to take over
+    private void writeDispatch(){
+        int[] keys = new int[opcodes.length];
+        int[] blockLabels = new int[opcodes.length];
+        int keyCount = 0;
+        for (int index = 0; index < opcodes.length; index++){
+            if (isLeader[index]){
+                keys[keyCount] = addresses[index];
+                blockLabels[keyCount++] = labels[index];
+            }
+        }
+        int fallback = writer.newLabel();
+
+        writer.bind(dispatchLabel);
+        writer.local(ClassFileWriter.ILOAD, PC);
+        writer.lookupSwitch(keys, blockLabels, keyCount, fallback);
+        writer.bind(fallback);
+        writer.pushInt(EXIT_FALLBACK);
+        writer.local(ClassFileWriter.ISTORE, EXIT_CODE);
+    }
+
+    // Stores the registers and the step count back and returns the exit code
+    private void writeExit(){
+        writer.bind(exitLabel);
+        int[] registers = {A, X, L, PC, SW};
+        int[] stateIndexes = {STATE_A, STATE_X, STATE_L, STATE_PC, STATE_SW};
+        for (int index = 0; index < registers.length; index++){
+            writer.local(ClassFileWriter.ALOAD, STATE);
+            writer.pushInt(stateIndexes[index]);
+            writer.local(ClassFileWriter.ILOAD, registers[index]);
+            writer.op(ClassFileWriter.IASTORE);
+        }
+        writer.local(ClassFileWriter.ALOAD, COUNTERS);
+        writer.pushInt(COUNTER_STEPS);
+        writer.local(ClassFileWriter.LLOAD, STEPS);
+        writer.op(ClassFileWriter.LASTORE);
+        writer.local(ClassFileWriter.ILOAD, EXIT_CODE);
+        writer.op(ClassFileWriter.IRETURN);
+    }
+}
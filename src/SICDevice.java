@@ -0,0 +1,13 @@
+// This interface is an I/O device of the SIC machine, used by the TD, RD and WD
+// instructions. Devices are numbered 00-FF; the number is the byte at the
+// instruction's target address.
+public interface SICDevice {
+    // TD: true sets the condition code to "<" (ready), false to "=" (busy)
+    boolean isReady();
+
+    // RD: the next byte from the device
+    int read();
+
+    // WD: writes the rightmost byte of register A
+    void write(int value);
+}
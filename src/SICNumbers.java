@@ -0,0 +1,63 @@
+// This class decodes the decimal and hex numbers of SIC operands straight from
+// the characters of a token, without Integer.parseInt. It accepts exactly what
+// Integer.parseInt accepts for the radix (an optional sign, then one or more
+// digits, within the int range), so operands are accepted and rejected as before.
+//
+// Failures are returned instead of thrown: the result is a long, and the two
+// failure codes lie outside the int range, so they can't be mistaken for a number.
+// A file full of bad operands no longer creates a NumberFormatException for each one.
+//    long value = SICNumbers.decode(operand, 0, operand.length(), 10, minimum, maximum);
+//    if (value == SICNumbers.NOT_A_NUMBER) ...
+//    else if (value == SICNumbers.OUT_OF_RANGE) ...
+// SourceLine is a CharSequence over the source bytes, so a token can also be
+// decoded without creating a String for it.
+public final class SICNumbers {
+    // Empty, a character that isn't a digit of the radix, or too large for an int
+    public static final long NOT_A_NUMBER = Long.MIN_VALUE;
+    // An int outside minimum-maximum
+    public static final long OUT_OF_RANGE = Long.MIN_VALUE + 1;
+    private static final long MAXIMUM_MAGNITUDE = -(long) Integer.MIN_VALUE;
+
+    private SICNumbers(){
+    }
+
+    // This function decodes the characters between start and end as a number
+    // in the radix (10 or 16) and checks it against minimum and maximum.
+    public static long decode(CharSequence text, int start, int end, int radix, int minimum, int maximum){
+        int index = start;
+        boolean isNegative = false;
+        if (index < end && (text.charAt(index) == '-' || text.charAt(index) == '+')){
+            isNegative = text.charAt(index) == '-';
+            index++;
+        }
+        if (index == end){
+            return NOT_A_NUMBER;
+        }
+
+        long magnitude = 0;
+        for (; index < end; index++){
+            // Character.digit, like Integer.parseInt, also takes lowercase hex and non-ASCII digits
+            int digit = Character.digit(text.charAt(index), radix);
+            if (digit < 0){
+                return NOT_A_NUMBER;
+            }
+            magnitude = magnitude * radix + digit;
+            if (magnitude > MAXIMUM_MAGNITUDE){
+                return NOT_A_NUMBER;
+            }
+        }
+
+        long value = isNegative ? -magnitude : magnitude;
+        if (value > Integer.MAX_VALUE){
+            return NOT_A_NUMBER;
+        }
+        if (value < minimum || value > maximum){
+            return OUT_OF_RANGE;
+        }
+        return value;
+    }
+
+    public static long decode(CharSequence text, int radix, int minimum, int maximum){
+        return decode(text, 0, text.length(), radix, minimum, maximum);
+    }
+}
@@ -0,0 +1,139 @@
+// This enum is the opcode table for the SIC instruction set
+// and the assembler directives accepted by the parser.
+// Each entry carries:
+//    1.) The machine opcode (NO_MACHINE_CODE for assembler directives)
+//    2.) The length in bytes of the generated code. BYTE, RESB and RESW
+//        depend on their operand and have a length of VARIABLE_LENGTH.
+//    3.) Whether the entry is an assembler directive
+//    4.) Whether the parser reads an operand for it. RSUB has no operand and
+//        the operand of END is optional and ignored, so both may stand alone.
+public enum SICOpcode {
+    ADD(0x18, 3, false, true),
+    AND(0x40, 3, false, true),
+    COMP(0x28, 3, false, true),
+    DIV(0x24, 3, false, true),
+    J(0x3C, 3, false, true),
+    JEQ(0x30, 3, false, true),
+    JGT(0x34, 3, false, true),
+    JLT(0x38, 3, false, true),
+    JSUB(0x48, 3, false, true),
+    LDA(0x00, 3, false, true),
+    LDCH(0x50, 3, false, true),
+    LDL(0x08, 3, false, true),
+    LDX(0x04, 3, false, true),
+    MUL(0x20, 3, false, true),
+    OR(0x44, 3, false, true),
+    RD(0xD8, 3, false, true),
+    RSUB(0x4C, 3, false, false),
+    STA(0x0C, 3, false, true),
+    STCH(0x54, 3, false, true),
+    STL(0x14, 3, false, true),
+    STSW(0xE8, 3, false, true),
+    STX(0x10, 3, false, true),
+    SUB(0x1C, 3, false, true),
+    TD(0xE0, 3, false, true),
+    TIX(0x2C, 3, false, true),
+    WD(0xDC, 3, false, true),
+    START(SICOpcode.NO_MACHINE_CODE, 0, true, true),
+    END(SICOpcode.NO_MACHINE_CODE, 0, true, false),
+    BYTE(SICOpcode.NO_MACHINE_CODE, SICOpcode.VARIABLE_LENGTH, true, true),
+    WORD(SICOpcode.NO_MACHINE_CODE, 3, true, true),
+    RESB(SICOpcode.NO_MACHINE_CODE, SICOpcode.VARIABLE_LENGTH, true, true),
+    RESW(SICOpcode.NO_MACHINE_CODE, SICOpcode.VARIABLE_LENGTH, true, true);
+
+    public static final int NO_MACHINE_CODE = -1;
+    public static final int VARIABLE_LENGTH = -1;
+    // Open addressing table of every mnemonic, indexed by the hash of its characters.
+    // It is more than twice the size of the opcode set so probes stay short.
+    private static final int LOOKUP_TABLE_SIZE = 128;
+    private static final SICOpcode[] LOOKUP_TABLE = new SICOpcode[LOOKUP_TABLE_SIZE];
+    private static final SICOpcode[] BY_MACHINE_CODE = new SICOpcode[256];
+    private final int machineCode;
+    private final int length;
+    private final boolean isDirective;
+    private final boolean takesOperand;
+
+    static {
+        for (SICOpcode opcode : values()){
+            String mnemonic = opcode.name();
+            int slot = hash(mnemonic, 0, mnemonic.length());
+            while (LOOKUP_TABLE[slot] != null){
+                slot = (slot + 1) & (LOOKUP_TABLE_SIZE - 1);
+            }
+            LOOKUP_TABLE[slot] = opcode;
+
+            if (opcode.machineCode != NO_MACHINE_CODE){
+                BY_MACHINE_CODE[opcode.machineCode] = opcode;
+            }
+        }
+    }
+
+    SICOpcode(int machineCode, int length, boolean isDirective, boolean takesOperand){
+        this.machineCode = machineCode;
+        this.length = length;
+        this.isDirective = isDirective;
+        this.takesOperand = takesOperand;
+    }
+
+    public int getMachineCode(){
+        return machineCode;
+    }
+
+    public int getLength(){
+        return length;
+    }
+
+    public boolean isDirective(){
+        return isDirective;
+    }
+
+    public boolean takesOperand(){
+        return takesOperand;
+    }
+
+    // This function looks up the opcode spelled by the characters
+    // between start and end, or returns null if there is none.
+    // It creates no objects, so tokens can be checked straight from the line.
+    public static SICOpcode lookup(CharSequence text, int start, int end){
+        int slot = hash(text, start, end);
+        SICOpcode candidate;
+        while ((candidate = LOOKUP_TABLE[slot]) != null){
+            if (candidate.matches(text, start, end)){
+                return candidate;
+            }
+            slot = (slot + 1) & (LOOKUP_TABLE_SIZE - 1);
+        }
+        return null;
+    }
+
+    public static SICOpcode lookup(CharSequence text){
+        return lookup(text, 0, text.length());
+    }
+
+    // This function returns the instruction with the given machine opcode,
+    // or null if the byte is not a SIC instruction.
+    public static SICOpcode fromMachineCode(int machineCode){
+        return BY_MACHINE_CODE[machineCode & 0xFF];
+    }
+
+    private boolean matches(CharSequence text, int start, int end){
+        String mnemonic = name();
+        if (mnemonic.length() != end - start){
+            return false;
+        }
+        for (int index = 0; index < mnemonic.length(); index++){
+            if (mnemonic.charAt(index) != text.charAt(start + index)){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int hash(CharSequence text, int start, int end){
+        int hash = end - start;
+        for (int index = start; index < end; index++){
+            hash = hash * 31 + text.charAt(index);
+        }
+        return (hash ^ (hash >>> 7)) & (LOOKUP_TABLE_SIZE - 1);
+    }
+}
@@ -1,6 +1,10 @@
-import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Scanner;
 
 
@@ -9,8 +13,63 @@ public class SICParserUI {
     private static final String PARSE_MENU = "(p)arse, (q)uit";
     private static final String QUIT_CONFIRM = "Are you sure you want to quit? (y)es, (n)o";
     private static final String UNRECOGNIZED_COMMAND = "Unrecognized command";
+    private static final String BATCH_OPTION = "--batch";
+    private static final String THREADS_OPTION = "--threads";
+    private static final String CACHE_OPTION = "--cache";
+    private static final String LINE_CACHE_OPTION = "--line-cache";
+    private static final String BATCH_USAGE = "Usage: SICParserUI --batch <directory or glob> [--threads <count>] [--cache <directory>] [--line-cache <entries>]";
+    private static final String STATS_OPTION = "--stats";
+    private static final String WATCH_OPTION = "--watch";
+    private static final String WATCH_USAGE = "Usage: SICParserUI --watch <directory>";
+    private static final String SERVER_OPTION = "--server";
+    private static final String PORT_OPTION = "--port";
+    private static final String SOCKET_OPTION = "--socket";
+    private static final String MAXIMUM_REQUESTS_OPTION = "--max-requests";
+    private static final String ROOT_OPTION = "--root";
+    private static final String SERVER_USAGE = "Usage: SICParserUI --server [--port <port> | --socket <path>] [--max-requests <count>] [--root <directory>]";
+    private static final String PROFILE_OPTION = "--profile";
+    private static final String STEPS_OPTION = "--steps";
+    private static final String PROFILE_USAGE = "Usage: SICParserUI --profile <file> [--steps <count>]";
+    private static final long DEFAULT_PROFILE_STEPS = 1_000_000_000L;
+    private static final int INPUT_DEVICE = 0xF1;
+    private static final int OUTPUT_DEVICE = 0x05;
+    private static final String FORMAT_OPTION = "--format";
+    private static final String FORMAT_USAGE = "Usage: SICParserUI [--format text|jsonl|csv|binary]";
     private static final String filePath = "/Users/nickjackson/Desktop/Assembly Code/";
     public static void main(String[] args) throws SICParsingError {
+        // --stats may be given with any mode. Metrics are switched on before the
+        // first parse loads ParseMetrics, and reported when the program exits.
+        if (Arrays.asList(args).contains(STATS_OPTION)){
+            args = Arrays.stream(args).filter(argument -> !argument.equals(STATS_OPTION)).toArray(String[]::new);
+            System.setProperty(ParseMetrics.ENABLED_PROPERTY, "true");
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> System.err.print(ParseMetrics.report())));
+        }
+
+        // Non-interactive mode for parsing many files at once
+        if (args.length > 0 && args[0].equals(BATCH_OPTION)){
+            System.exit(runBatch(args));
+        }
+        if (args.length > 0 && args[0].equals(WATCH_OPTION)){
+            System.exit(runWatch(args));
+        }
+        if (args.length > 0 && args[0].equals(SERVER_OPTION)){
+            System.exit(runServer(args));
+        }
+        if (args.length > 0 && args[0].equals(PROFILE_OPTION)){
+            System.exit(runProfile(args));
+        }
+
+        // Parsed code is listed in the format given with --format, text by default
+        String outputFormat = ParseResultWriter.TEXT_FORMAT;
+        if (args.length == 2 && args[0].equals(FORMAT_OPTION)){
+            outputFormat = args[1];
+        }
+        if ((args.length != 0 && !args[0].equals(FORMAT_OPTION)) || args.length > 2
+                || !ParseResultWriter.isFormat(outputFormat)){
+            System.err.println(FORMAT_USAGE);
+            System.exit(2);
+        }
+
         // TODO: move constants to outside of method and make them private and static
         System.out.println("SIC PARSER");
 
@@ -26,27 +85,24 @@ public class SICParserUI {
                         System.out.println("Enter program file name with assembly code file extension");
                         System.out.print(SICPARSER_PROMPT);
                         String programFileName = inputReader.nextLine();
-                        File assemblyCodeFile = new File(filePath + programFileName);
-                        Scanner fileReader = new Scanner(assemblyCodeFile);
+                        Path assemblyCodeFile = Path.of(filePath + programFileName);
+                        if (!Files.isReadable(assemblyCodeFile)){
+                            throw new FileNotFoundException(assemblyCodeFile.toString());
+                        }
                         System.out.println("Assembly Code file found.");
 
-                        ArrayList<ParsedLineOfCode> parsedCodeList = ParseAssemblyCode.parse(fileReader);
-
+                        ArrayList<ParsedLineOfCode> parsedCodeList = ParseAssemblyCode.parse(assemblyCodeFile);
 
-                        for (ParsedLineOfCode parsedLineOfCode : parsedCodeList) {
-                            System.out.println("Line Number: " + parsedLineOfCode.getLineNumber());
-                            System.out.println("Unparsed Line of Code: " + parsedLineOfCode.getUnparsedLineOfCode());
-                            System.out.println("Is Comment: " + parsedLineOfCode.getIsComment());
-                            System.out.println("Label: " + parsedLineOfCode.getLabel());
-                            System.out.println("Opcode: " + parsedLineOfCode.getOpcode());
-                            System.out.println("Operand: " + parsedLineOfCode.getOperand() + "\n");
-                        }
-
-                        fileReader.close();
+                        // One buffered writer instead of six println calls per line
+                        ParseResultWriter resultWriter = ParseResultWriter.create(outputFormat, Channels.newChannel(System.out));
+                        resultWriter.writeAll(parsedCodeList);
                     }
                     catch (FileNotFoundException | SICParsingError e) {
                         throw new SICParsingError("Assembly Code file not found.");
                     }
+                    catch (IOException e) {
+                        System.err.println("Parsed code could not be written: " + e.getMessage());
+                    }
                     break;
 
                 case "Q":
@@ -64,4 +120,215 @@ public class SICParserUI {
         }
     }
 
+    // This function runs a batch parse from the command line.
+    // Failed files are listed with their error, followed by a summary.
+    // It returns the process exit code: 0 if every file passed, 1 if any failed, 2 on bad usage.
+    private static int runBatch(String[] args){
+        String directoryOrGlob = null;
+        int threadCount = Runtime.getRuntime().availableProcessors();
+        String cacheDirectory = null;
+        int lineCacheEntries = 0;
+
+        try {
+            for (int index = 1; index < args.length; index++){
+                if (args[index].equals(THREADS_OPTION)){
+                    threadCount = Integer.parseInt(args[++index]);
+                }
+                else if (args[index].equals(CACHE_OPTION)){
+                    cacheDirectory = args[++index];
+                }
+                else if (args[index].equals(LINE_CACHE_OPTION)){
+                    lineCacheEntries = Integer.parseInt(args[++index]);
+                    if (lineCacheEntries < 1){
+                        throw new NumberFormatException(args[index]);
+                    }
+                }
+                else{
+                    directoryOrGlob = args[index];
+                }
+            }
+        }
+
+        catch (NumberFormatException | ArrayIndexOutOfBoundsException e){
+            directoryOrGlob = null;
+        }
+
+        if (directoryOrGlob == null || threadCount < 1){
+            System.err.println(BATCH_USAGE);
+            return 2;
+        }
+
+        try {
+            ParseCache cache = cacheDirectory == null ? null : new ParseCache(Path.of(cacheDirectory));
+            ParsedLineCache lineCache = lineCacheEntries == 0 ? null : new ParsedLineCache(lineCacheEntries);
+            BatchParseSummary summary = BatchParser.parseAll(BatchParser.findFiles(directoryOrGlob), threadCount, cache, lineCache);
+
+            for (BatchParseResult result : summary.getResults()){
+                if (!result.isPassed()){
+                    System.out.println("FAIL " + result.getPath() + "\n" + result.getErrorMessage());
+                }
+            }
+            System.out.println(summary);
+            if (cache != null){
+                System.out.println("Cache: " + cache.getHitCount() + " hits, " + cache.getMissCount() + " misses");
+            }
+            if (lineCache != null){
+                System.out.println(lineCache);
+            }
+
+            return summary.getFailedCount() == 0 ? 0 : 1;
+        }
+
+        catch (IOException e){
+            System.err.println("Batch parse failed: " + e.getMessage());
+            return 2;
+        }
+    }
+
+    // This function watches a directory and prints the diagnostics
+    // of each assembly code file every time it is saved.
+    // It only returns on bad usage (exit code 2) or if the directory can't be watched.
+    private static int runWatch(String[] args){
+        if (args.length != 2 || !Files.isDirectory(Path.of(args[1]))){
+            System.err.println(WATCH_USAGE);
+            return 2;
+        }
+
+        AssemblyFileWatcher.Listener listener = (assemblyCodeFile, parser, elapsedNanos) -> {
+            ParseDiagnostics diagnostics = parser.getDiagnostics();
+            System.out.printf("%s: %d lines, %d re-parsed, %d problems (%.2f ms)%n", assemblyCodeFile,
+                    parser.getLineCount(), parser.getReparsedLineCount(), diagnostics.size(), elapsedNanos / 1e6);
+            System.out.print(diagnostics);
+        };
+
+        try (AssemblyFileWatcher watcher = new AssemblyFileWatcher(Path.of(args[1]), listener)){
+            System.out.println("Watching " + args[1] + " for changes. Press Ctrl+C to stop.");
+            watcher.run();
+            return 0;
+        }
+
+        catch (IOException e){
+            System.err.println("Watch failed: " + e.getMessage());
+            return 2;
+        }
+    }
+
+    // This function runs the parse server until the process is stopped.
+    // It only returns on bad usage (exit code 2) or if the server can't listen.
+    private static int runServer(String[] args){
+        int port = ParseServer.DEFAULT_PORT;
+        String socketFile = null;
+        // PARSE requests may only read files under sourceRoot, and are refused without one
+        String sourceRoot = null;
+        int maximumConcurrentRequests = ParseServer.DEFAULT_MAXIMUM_CONCURRENT_REQUESTS;
+
+        try {
+            for (int index = 1; index < args.length; index++){
+                switch (args[index]){
+                    case PORT_OPTION -> port = Integer.parseInt(args[++index]);
+                    case SOCKET_OPTION -> socketFile = args[++index];
+                    case MAXIMUM_REQUESTS_OPTION -> maximumConcurrentRequests = Integer.parseInt(args[++index]);
+                    case ROOT_OPTION -> sourceRoot = args[++index];
+                    default -> throw new IllegalArgumentException(args[index]);
+                }
+            }
+        }
+
+        catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e){
+            maximumConcurrentRequests = 0;
+        }
+
+        if (maximumConcurrentRequests < 1){
+            System.err.println(SERVER_USAGE);
+            return 2;
+        }
+
+        try (ParseServer server = socketFile == null ? ParseServer.listen(port, maximumConcurrentRequests)
+                : ParseServer.listen(Path.of(socketFile), maximumConcurrentRequests)){
+            if (sourceRoot != null){
+                server.setSourceRoot(Path.of(sourceRoot));
+            }
+            server.warmUp();
+            System.out.println("Parse server listening on " + server.getAddress());
+            server.run();
+            return 0;
+        }
+
+        catch (IOException e){
+            System.err.println("Parse server failed: " + e.getMessage());
+            return 2;
+        }
+    }
+
+    // This function assembles a program and runs it in the simulator with a
+    // profiler. Device F1 reads standard input and device 05 writes standard
+    // output; the profile is printed to standard error, like --stats.
+    // It returns 0 if the program halted, 1 if it failed to assemble or stopped
+    // any other way, and 2 on bad usage.
+    private static int runProfile(String[] args){
+        String assemblyCodeFile = null;
+        long maximumSteps = DEFAULT_PROFILE_STEPS;
+
+        try {
+            for (int index = 1; index < args.length; index++){
+                if (args[index].equals(STEPS_OPTION)){
+                    maximumSteps = Long.parseLong(args[++index]);
+                }
+                else if (assemblyCodeFile == null){
+                    assemblyCodeFile = args[index];
+                }
+                else{
+                    throw new IllegalArgumentException(args[index]);
+                }
+            }
+        }
+
+        catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e){
+            assemblyCodeFile = null;
+        }
+
+        if (assemblyCodeFile == null || maximumSteps < 1){
+            System.err.println(PROFILE_USAGE);
+            return 2;
+        }
+
+        AssemblySource source;
+        try {
+            source = AssemblySource.open(Path.of(assemblyCodeFile));
+        }
+
+        catch (IOException e){
+            System.err.println("Assembly Code file could not be read: " + assemblyCodeFile);
+            return 1;
+        }
+
+        try {
+            // Parsed without the completion message, so standard output only carries device 05
+            AssemblerPass1 pass1 = AssemblerPass1.run(ParseAssemblyCode.collect(source));
+            SICSimulator simulator = new SICSimulator();
+            simulator.load(pass1);
+            // Standard input and output stay open, so the devices are flushed but not closed
+            ChannelDevice output = ChannelDevice.writing(Channels.newChannel(System.out));
+            simulator.setDevice(INPUT_DEVICE, ChannelDevice.reading(Channels.newChannel(System.in)));
+            simulator.setDevice(OUTPUT_DEVICE, output);
+            SICProfiler profiler = new SICProfiler(pass1);
+            simulator.setProfiler(profiler);
+
+            long startTime = System.nanoTime();
+            SICSimulator.StopReason stopReason = simulator.run(maximumSteps);
+            long elapsedNanos = System.nanoTime() - startTime;
+            output.flush();
+            System.out.flush();
+
+            System.err.printf("%s after %d instructions (%.2f ms)%n", stopReason, simulator.getInstructionCount(),
+                    elapsedNanos / 1e6);
+            System.err.print(profiler);
+            return stopReason == SICSimulator.StopReason.HALTED ? 0 : 1;
+        }
+
+        catch (SICParsingError e){
+            System.err.println(e.getMessage());
+            return 1;
+        }
+    }
 }
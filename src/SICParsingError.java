@@ -2,4 +2,23 @@ public class SICParsingError extends Exception{
     public SICParsingError (String message){
         super(message);
     }
+
+    // Errors are counted in ParseMetrics where a problem is reported (thrown to
+    // the caller or added to a ParseDiagnostics), not here, since a validation
+    // error is created once more when it is reported with its line.
+    // Validation errors are always caught and reported again with the line
+    // they came from, so they skip capturing a stack trace, which is most of
+    // the cost of creating an exception.
+    SICParsingError (String message, boolean writableStackTrace){
+        super(message, null, false, writableStackTrace);
+    }
+
+    // Timed for ParseMetrics, since capturing the stack is most of the cost of an error
+    @Override
+    public synchronized Throwable fillInStackTrace(){
+        long startTime = ParseMetrics.start();
+        Throwable throwable = super.fillInStackTrace();
+        ParseMetrics.stop(ParseMetrics.Timer.ERROR_CREATION, startTime);
+        return throwable;
+    }
 }
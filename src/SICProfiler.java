@@ -0,0 +1,353 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// This class profiles a program running in SICSimulator: how many times the
+// instruction at each address ran, how often each opcode ran, which backward
+// jumps (loops) were taken most, and an estimate of the cycles spent.
+// Everything is reported against the source lines of the assembled program.
+//
+// Attach it before running:
+//    SICProfiler profiler = new SICProfiler(pass1);
+//    simulator.setProfiler(profiler);
+//    simulator.run(maximumSteps);
+//    System.out.print(profiler);
+//
+// Straight-line code doesn't need a counter per instruction: the simulator only
+// tells the profiler where each run() starts and stops and about the jumps that
+// are taken (and subroutine calls and returns), which are counted in arrays
+// indexed by address. The number of times
+// each instruction ran is worked out from those when it is asked for:
+//    count(address) = entries(address) + count(address - 3) - exits(address - 3)
+// where entries counts jumps to an address and exits counts jumps from it.
+// Opcode counts and cycles are worked out from the instruction counts, so a
+// profiled run costs little more than an unprofiled one.
+// A program that stores over its own instructions is reported with the opcodes
+// in memory when the report is made.
+//
+// Cycle costs are relative weights per opcode, not the timings of real
+// hardware; setCycleCost() changes them.
+public class SICProfiler {
+    public static final int NO_LINE = -1;
+    private static final int NO_LOOP = -1;
+    private static final int DEFAULT_REPORT_LIMIT = 10;
+    private static final int[] DEFAULT_CYCLE_COSTS = new int[256];
+    private final List<ParsedLineOfCode> parsedCodeList;
+    // The index in parsedCodeList of the instruction at each address, or NO_LINE
+    private final int[] lineIndexes = new int[SICSimulator.MEMORY_SIZE];
+    private final int[] cycleCosts = DEFAULT_CYCLE_COSTS.clone();
+    private final long[] entryCounts = new long[SICSimulator.MEMORY_SIZE];
+    private final long[] exitCounts = new long[SICSimulator.MEMORY_SIZE];
+    private byte[] memory;
+
+    static {
+        for (SICOpcode opcode : SICOpcode.values()){
+            if (opcode.getMachineCode() != SICOpcode.NO_MACHINE_CODE){
+                DEFAULT_CYCLE_COSTS[opcode.getMachineCode()] = 2;
+            }
+        }
+        for (SICOpcode opcode : new SICOpcode[]{SICOpcode.J, SICOpcode.JEQ, SICOpcode.JGT, SICOpcode.JLT,
+                SICOpcode.JSUB, SICOpcode.RSUB}){
+            DEFAULT_CYCLE_COSTS[opcode.getMachineCode()] = 1;
+        }
+        DEFAULT_CYCLE_COSTS[SICOpcode.MUL.getMachineCode()] = 4;
+        DEFAULT_CYCLE_COSTS[SICOpcode.DIV.getMachineCode()] = 8;
+        for (SICOpcode opcode : new SICOpcode[]{SICOpcode.TD, SICOpcode.RD, SICOpcode.WD}){
+            DEFAULT_CYCLE_COSTS[opcode.getMachineCode()] = 10;
+        }
+    }
+
+    // A loop: a backward jump that was taken, and the instructions from its
+    // target to the jump
+    public static final class HotLoop {
+        private final int targetAddress;
+        private final int jumpAddress;
+        private final long iterations;
+        private final long instructionCount;
+        private final long cycles;
+
+        private HotLoop(int targetAddress, int jumpAddress, long iterations, long instructionCount, long cycles){
+            this.targetAddress = targetAddress;
+            this.jumpAddress = jumpAddress;
+            this.iterations = iterations;
+            this.instructionCount = instructionCount;
+            this.cycles = cycles;
+        }
+
+        public int getTargetAddress(){
+            return targetAddress;
+        }
+
+        public int getJumpAddress(){
+            return jumpAddress;
+        }
+
+        // The number of times the backward jump was taken
+        public long getIterations(){
+            return iterations;
+        }
+
+        // The instructions run from the target to the jump, including the jump
+        public long getInstructionCount(){
+            return instructionCount;
+        }
+
+        public long getCycles(){
+            return cycles;
+        }
+    }
+
+    public SICProfiler(AssemblerPass1 pass1){
+        parsedCodeList = pass1.getParsedCodeList();
+        Arrays.fill(lineIndexes, NO_LINE);
+        for (int index = 0; index < parsedCodeList.size(); index++){
+            int address = pass1.getAddress(index);
+            SICOpcode opcode = parsedCodeList.get(index).getSICOpcode();
+            if (address != AssemblerPass1.NO_ADDRESS && opcode != null && !opcode.isDirective()){
+                lineIndexes[address] = index;
+            }
+        }
+    }
+
+    // Called by SICSimulator.run() when it starts at pc
+    void start(int pc){
+        if (pc >= 0 && pc < SICSimulator.MEMORY_SIZE){
+            entryCounts[pc]++;
+        }
+    }
+
+    // Called by SICSimulator.run() when it stops at pc, before running the
+    // instruction there
+    void stop(int pc){
+        if (pc >= 0 && pc < SICSimulator.MEMORY_SIZE){
+            entryCounts[pc]--;
+        }
+    }
+
+    // Called by SICSimulator.run() after the instruction at address ran, if
+    // the next instruction is not the one that follows it
+    void transfer(int address, int next){
+        exitCounts[address]++;
+        if (next >= 0 && next < SICSimulator.MEMORY_SIZE){
+            entryCounts[next]++;
+        }
+    }
+
+    // The number of times the instruction at each address ran
+    private long[] executionCounts(){
+        long[] executionCounts = new long[SICSimulator.MEMORY_SIZE];
+        for (int address = 0; address < SICSimulator.MEMORY_SIZE; address++){
+            executionCounts[address] = entryCounts[address];
+            if (address >= 3){
+                executionCounts[address] += executionCounts[address - 3] - exitCounts[address - 3];
+            }
+        }
+        return executionCounts;
+    }
+
+    // Called by SICSimulator.setProfiler(); opcodes are read from this memory
+    void attach(byte[] memory){
+        this.memory = memory;
+    }
+
+    public void reset(){
+        Arrays.fill(entryCounts, 0);
+        Arrays.fill(exitCounts, 0);
+    }
+
+    public void setCycleCost(SICOpcode opcode, int cycles){
+        if (opcode.getMachineCode() == SICOpcode.NO_MACHINE_CODE || cycles < 0){
+            throw new IllegalArgumentException("No cycle cost for " + opcode + ": " + cycles);
+        }
+        cycleCosts[opcode.getMachineCode()] = cycles;
+    }
+
+    public int getCycleCost(SICOpcode opcode){
+        return opcode.getMachineCode() == SICOpcode.NO_MACHINE_CODE ? 0 : cycleCosts[opcode.getMachineCode()];
+    }
+
+    // The number of times the instruction at each address ran, indexed by address
+    public long[] getExecutionCounts(){
+        return executionCounts();
+    }
+
+    public long getExecutionCount(int address){
+        return executionCounts()[address];
+    }
+
+    // The number of times the instruction of a line ran, or 0 if the line has none
+    public long getExecutionCount(ParsedLineOfCode lineOfCode){
+        long[] executionCounts = executionCounts();
+        for (int address = 0; address < SICSimulator.MEMORY_SIZE; address++){
+            if (lineIndexes[address] != NO_LINE && parsedCodeList.get(lineIndexes[address]) == lineOfCode){
+                return executionCounts[address];
+            }
+        }
+        return 0;
+    }
+
+    public long getTotalInstructionCount(){
+        long total = 0;
+        for (long count : executionCounts()){
+            total += count;
+        }
+        return total;
+    }
+
+    // The number of times each opcode ran, indexed by machine code
+    public long[] getOpcodeHistogram(){
+        long[] executionCounts = executionCounts();
+        long[] histogram = new long[256];
+        for (int address = 0; address < SICSimulator.MEMORY_SIZE; address++){
+            if (executionCounts[address] > 0){
+                histogram[opcodeAt(address)] += executionCounts[address];
+            }
+        }
+        return histogram;
+    }
+
+    public long getOpcodeCount(SICOpcode opcode){
+        return opcode.getMachineCode() == SICOpcode.NO_MACHINE_CODE ? 0 : getOpcodeHistogram()[opcode.getMachineCode()];
+    }
+
+    public long getEstimatedCycles(){
+        return cycles(executionCounts(), 0, SICSimulator.MEMORY_SIZE - 1);
+    }
+
+    // The cycles of the instructions from first to last address
+    private long cycles(long[] executionCounts, int firstAddress, int lastAddress){
+        long cycles = 0;
+        for (int address = firstAddress; address <= lastAddress; address++){
+            if (executionCounts[address] > 0){
+                cycles += executionCounts[address] * cycleCosts[opcodeAt(address)];
+            }
+        }
+        return cycles;
+    }
+
+    private int opcodeAt(int address){
+        return memory == null ? 0 : memory[address] & 0xFF;
+    }
+
+    // The loops whose backward jump was taken, most cycles first.
+    // A loop is a J, JEQ, JGT or JLT to the same or an earlier address; the
+    // target of an indexed jump isn't known after the run, so it isn't reported.
+    public List<HotLoop> getHotLoops(){
+        long[] executionCounts = executionCounts();
+        List<HotLoop> hotLoops = new ArrayList<>();
+        for (int address = 0; address < SICSimulator.MEMORY_SIZE; address++){
+            if (exitCounts[address] == 0){
+                continue;
+            }
+            int target = loopTarget(address);
+            if (target == NO_LOOP){
+                continue;
+            }
+            long instructionCount = 0;
+            for (int loopAddress = target; loopAddress <= address; loopAddress++){
+                instructionCount += executionCounts[loopAddress];
+            }
+            hotLoops.add(new HotLoop(target, address, exitCounts[address], instructionCount, cycles(executionCounts, target, address)));
+        }
+        hotLoops.sort((first, second) -> Long.compare(second.getCycles(), first.getCycles()));
+        return hotLoops;
+    }
+
+    // The target of the backward jump at an address, or NO_LOOP
+    private int loopTarget(int address){
+        int opcode = opcodeAt(address);
+        if (opcode != 0x3C && opcode != 0x30 && opcode != 0x34 && opcode != 0x38){
+            return NO_LOOP;
+        }
+        if ((memory[address + 1] & 0x80) != 0){
+            return NO_LOOP;
+        }
+        int target = ((memory[address + 1] & 0x7F) << 8) | (memory[address + 2] & 0xFF);
+        // J to itself is a halt
+        if (target > address || (target == address && opcode == 0x3C)){
+            return NO_LOOP;
+        }
+        return target;
+    }
+
+    // The source line of the instruction at an address, or null
+    public ParsedLineOfCode getLineOfCode(int address){
+        return lineIndexes[address] == NO_LINE ? null : parsedCodeList.get(lineIndexes[address]);
+    }
+
+    // This function formats the profile: totals, the most run lines, the opcode
+    // histogram and the hot loops, at most limit entries each.
+    public String report(int limit){
+        long[] executionCounts = executionCounts();
+        StringBuilder builder = new StringBuilder();
+        String lineSeparator = System.lineSeparator();
+        long totalInstructions = getTotalInstructionCount();
+        long totalCycles = getEstimatedCycles();
+        builder.append(String.format("Instructions: %d, estimated cycles: %d%n", totalInstructions, totalCycles));
+
+        builder.append(lineSeparator).append("Most run lines:").append(lineSeparator);
+        builder.append(String.format("  %-4s %12s %7s %12s  %s%n", "ADDR", "COUNT", "%", "CYCLES", "SOURCE"));
+        Integer[] addresses = new Integer[SICSimulator.MEMORY_SIZE];
+        int addressCount = 0;
+        for (int address = 0; address < SICSimulator.MEMORY_SIZE; address++){
+            if (executionCounts[address] > 0){
+                addresses[addressCount++] = address;
+            }
+        }
+        Arrays.sort(addresses, 0, addressCount, (first, second) -> Long.compare(executionCounts[second], executionCounts[first]));
+        for (int index = 0; index < Math.min(limit, addressCount); index++){
+            int address = addresses[index];
+            long count = executionCounts[address];
+            builder.append(String.format("  %04X %12d %6.2f%% %12d  %s%n", address, count, percent(count, totalInstructions),
+                    count * cycleCosts[opcodeAt(address)], describe(address)));
+        }
+
+        builder.append(lineSeparator).append("Opcodes:").append(lineSeparator);
+        long[] histogram = getOpcodeHistogram();
+        Integer[] machineCodes = new Integer[256];
+        int machineCodeCount = 0;
+        for (int machineCode = 0; machineCode < 256; machineCode++){
+            if (histogram[machineCode] > 0){
+                machineCodes[machineCodeCount++] = machineCode;
+            }
+        }
+        Arrays.sort(machineCodes, 0, machineCodeCount, (first, second) -> Long.compare(histogram[second], histogram[first]));
+        for (int index = 0; index < Math.min(limit, machineCodeCount); index++){
+            int machineCode = machineCodes[index];
+            SICOpcode opcode = SICOpcode.fromMachineCode(machineCode);
+            builder.append(String.format("  %-6s %12d %6.2f%% %12d%n", opcode == null ? String.format("%02X", machineCode) : opcode,
+                    histogram[machineCode], percent(histogram[machineCode], totalInstructions),
+                    histogram[machineCode] * cycleCosts[machineCode]));
+        }
+
+        builder.append(lineSeparator).append("Hot loops:").append(lineSeparator);
+        List<HotLoop> hotLoops = getHotLoops();
+        for (int index = 0; index < Math.min(limit, hotLoops.size()); index++){
+            HotLoop hotLoop = hotLoops.get(index);
+            builder.append(String.format("  %04X-%04X %10d iterations %12d instructions %6.2f%% of cycles%n",
+                    hotLoop.getTargetAddress(), hotLoop.getJumpAddress(), hotLoop.getIterations(),
+                    hotLoop.getInstructionCount(), percent(hotLoop.getCycles(), totalCycles)));
+            builder.append("    from ").append(describe(hotLoop.getTargetAddress())).append(lineSeparator);
+            builder.append("    to   ").append(describe(hotLoop.getJumpAddress())).append(lineSeparator);
+        }
+        return builder.toString();
+    }
+
+    private static double percent(long part, long total){
+        return total == 0 ? 0 : part * 100.0 / total;
+    }
+
+    // "LINE n: text" for the instruction at an address
+    private String describe(int address){
+        ParsedLineOfCode lineOfCode = getLineOfCode(address);
+        if (lineOfCode == null){
+            return "(no source line)";
+        }
+        return "LINE " + lineOfCode.getLineNumber() + ": " + lineOfCode.getUnparsedLineOfCode().strip();
+    }
+
+    @Override
+    public String toString(){
+        return report(DEFAULT_REPORT_LIMIT);
+    }
+}
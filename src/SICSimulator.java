@@ -0,0 +1,481 @@
+import java.util.Arrays;
+import java.util.List;
+
+// This class simulates the SIC machine: 32768 bytes of memory, the A, X, L, PC
+// and SW registers, and the instruction set of SICOpcode.
+// Memory is a flat byte array, because SIC addresses bytes and words are three
+// bytes long at any address. Registers hold 24-bit values in ints.
+//
+// run() is a single decode and dispatch loop over local copies of the registers;
+// it creates no objects, so a program runs at JIT speed for as many steps as it needs.
+// The simulation stops when:
+//    1.) The program returns to the caller that started it (RSUB with L = HALT_ADDRESS)
+//        or jumps to itself (the "HALT J HALT" idiom)
+//    2.) The step limit is reached
+//    3.) The next instruction is at a breakpoint
+//    4.) An invalid opcode, a memory access outside 0000-7FFF, or a division by zero
+public class SICSimulator {
+    public static final int MEMORY_SIZE = 32768;
+    public static final int HALT_ADDRESS = 0xFFFFFF;
+    public static final int CONDITION_LESS = 0x40;
+    public static final int CONDITION_EQUAL = 0x00;
+    public static final int CONDITION_GREATER = 0x80;
+    private static final int CONDITION_MASK = 0xC0;
+    private static final int WORD_MASK = 0xFFFFFF;
+    private static final int ADDRESS_MASK = 0x7FFF;
+    private static final int INDEXED_ADDRESSING_BIT = 0x8000;
+    private static final int LAST_WORD_ADDRESS = MEMORY_SIZE - 3;
+    private static final int DEVICE_COUNT = 256;
+    // The number of bytes each opcode reads or writes at its target address
+    private static final byte[] ACCESS_LENGTHS = new byte[256];
+    // Ready, reads zeros and discards writes
+    private static final SICDevice NULL_DEVICE = new SICDevice() {
+        @Override
+        public boolean isReady(){
+            return true;
+        }
+
+        @Override
+        public int read(){
+            return 0;
+        }
+
+        @Override
+        public void write(int value){
+        }
+    };
+    private final byte[] memory = new byte[MEMORY_SIZE];
+    private final boolean[] breakpoints = new boolean[MEMORY_SIZE];
+    private final SICDevice[] devices = new SICDevice[DEVICE_COUNT];
+    private int a;
+    private int x;
+    private int l = HALT_ADDRESS;
+    private int pc;
+    private int sw;
+    private long instructionCount = 0;
+    private int breakpointCount = 0;
+    private SICProfiler profiler;
+    private int faultAddress = -1;
+
+    public enum StopReason {
+        HALTED,
+        STEP_LIMIT,
+        BREAKPOINT,
+        INVALID_OPCODE,
+        ADDRESS_FAULT,
+        DIVIDE_BY_ZERO
+    }
+
+    static {
+        for (SICOpcode opcode : SICOpcode.values()){
+            if (opcode.getMachineCode() != SICOpcode.NO_MACHINE_CODE){
+                ACCESS_LENGTHS[opcode.getMachineCode()] = 3;
+            }
+        }
+        for (SICOpcode opcode : new SICOpcode[]{SICOpcode.LDCH, SICOpcode.STCH, SICOpcode.RD, SICOpcode.TD, SICOpcode.WD}){
+            ACCESS_LENGTHS[opcode.getMachineCode()] = 1;
+        }
+        for (SICOpcode opcode : new SICOpcode[]{SICOpcode.J, SICOpcode.JEQ, SICOpcode.JGT, SICOpcode.JLT,
+                SICOpcode.JSUB, SICOpcode.RSUB}){
+            ACCESS_LENGTHS[opcode.getMachineCode()] = 0;
+        }
+    }
+
+    public SICSimulator(){
+        Arrays.fill(devices, NULL_DEVICE);
+    }
+
+    // This function loads an assembled program straight into memory, using the
+    // same per-line object code as the object program, and sets PC to the
+    // first instruction. L is set to HALT_ADDRESS so the final RSUB halts.
+    public void load(AssemblerPass1 pass1) throws SICParsingError {
+        List<ParsedLineOfCode> parsedCodeList = pass1.getParsedCodeList();
+        byte[] objectCode = new byte[AssemblerPass2.MAXIMUM_OBJECT_CODE_LENGTH];
+
+        for (int index = 0; index < parsedCodeList.size(); index++){
+            int address = pass1.getAddress(index);
+            if (address == AssemblerPass1.NO_ADDRESS){
+                continue;
+            }
+            int length = AssemblerPass2.encode(parsedCodeList.get(index), pass1.getSymbolTable(), objectCode);
+            System.arraycopy(objectCode, 0, memory, address, length);
+        }
+
+        pc = AssemblerPass2.getFirstInstructionAddress(pass1);
+        l = HALT_ADDRESS;
+    }
+
+    // This function loads an object program (H, T and E records, one per line)
+    // as written by AssemblerPass2, and sets PC from the E record.
+    // A malformed record throws IllegalArgumentException.
+    public void loadObjectProgram(CharSequence objectProgram){
+        int recordStart = 0;
+        while (recordStart < objectProgram.length()){
+            int recordEnd = recordStart;
+            while (recordEnd < objectProgram.length() && objectProgram.charAt(recordEnd) != '\n'){
+                recordEnd++;
+            }
+            int end = recordEnd > recordStart && objectProgram.charAt(recordEnd - 1) == '\r' ? recordEnd - 1 : recordEnd;
+
+            if (end > recordStart){
+                switch (objectProgram.charAt(recordStart)){
+                    case 'H':
+                        break;
+                    case 'T':
+                        int address = hexValue(objectProgram, recordStart + 1, 6, end);
+                        int length = hexValue(objectProgram, recordStart + 7, 2, end);
+                        if (address + length > MEMORY_SIZE || recordStart + 9 + length * 2 > end){
+                            throw new IllegalArgumentException("Text record does not fit: " + objectProgram.subSequence(recordStart, end));
+                        }
+                        for (int index = 0; index < length; index++){
+                            memory[address + index] = (byte) hexValue(objectProgram, recordStart + 9 + index * 2, 2, end);
+                        }
+                        break;
+                    case 'E':
+                        pc = hexValue(objectProgram, recordStart + 1, 6, end);
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown record: " + objectProgram.subSequence(recordStart, end));
+                }
+            }
+            recordStart = recordEnd + 1;
+        }
+        l = HALT_ADDRESS;
+    }
+
+    private static int hexValue(CharSequence text, int start, int digits, int end){
+        if (start + digits > end){
+            throw new IllegalArgumentException("Record is too short: " + text.subSequence(start - 1, end));
+        }
+        int value = 0;
+        for (int index = start; index < start + digits; index++){
+            char character = text.charAt(index);
+            if (!SICCharacters.isHexDigit(character)){
+                throw new IllegalArgumentException("Invalid hex digit in record: " + character);
+            }
+            value = (value << 4) | SICCharacters.hexValue(character);
+        }
+        return value;
+    }
+
+    public StopReason step(){
+        return run(1);
+    }
+
+    // This function runs until the program halts or stops, for at most maximumSteps
+    // instructions. A breakpoint at the current PC doesn't stop the first step,
+    // so calling run() again continues past it.
+    public StopReason run(long maximumSteps){
+        final byte[] memory = this.memory;
+        final boolean[] breakpoints = this.breakpoints;
+        final SICProfiler profiler = this.profiler;
+        int a = this.a;
+        int x = this.x;
+        int l = this.l;
+        int pc = this.pc;
+        int sw = this.sw;
+        long steps = 0;
+        StopReason stopReason = StopReason.STEP_LIMIT;
+        if (profiler != null){
+            profiler.start(pc);
+        }
+
+        while (steps < maximumSteps){
+            if (pc < 0 || pc > LAST_WORD_ADDRESS){
+                if (pc == HALT_ADDRESS){
+                    stopReason = StopReason.HALTED;
+                }
+                else{
+                    stopReason = StopReason.ADDRESS_FAULT;
+                    faultAddress = pc;
+                }
+                break;
+            }
+            if (breakpoints[pc] && steps > 0){
+                stopReason = StopReason.BREAKPOINT;
+                break;
+            }
+
+            int opcode = memory[pc] & 0xFF;
+            int operand = ((memory[pc + 1] & 0xFF) << 8) | (memory[pc + 2] & 0xFF);
+            int target = operand & ADDRESS_MASK;
+            if ((operand & INDEXED_ADDRESSING_BIT) != 0){
+                target += x;
+            }
+            int next = pc + 3;
+
+            // Memory accesses outside 0000-7FFF fault before the instruction runs
+            if (target + ACCESS_LENGTHS[opcode] > MEMORY_SIZE){
+                stopReason = StopReason.ADDRESS_FAULT;
+                faultAddress = target;
+                break;
+            }
+
+            switch (opcode){
+                case 0x18: // ADD
+                    a = (a + word(memory, target)) & WORD_MASK;
+                    break;
+                case 0x40: // AND
+                    a = a & word(memory, target);
+                    break;
+                case 0x28: // COMP
+                    sw = compare(sw, a, word(memory, target));
+                    break;
+                case 0x24: // DIV
+                    int divisor = signed(word(memory, target));
+                    if (divisor == 0){
+                        stopReason = StopReason.DIVIDE_BY_ZERO;
+                        faultAddress = pc;
+                        break;
+                    }
+                    a = (signed(a) / divisor) & WORD_MASK;
+                    break;
+                case 0x3C: // J
+                    if (target == pc){
+                        stopReason = StopReason.HALTED;
+                    }
+                    next = target;
+                    break;
+                case 0x30: // JEQ
+                    if ((sw & CONDITION_MASK) == CONDITION_EQUAL){
+                        next = target;
+                    }
+                    break;
+                case 0x34: // JGT
+                    if ((sw & CONDITION_MASK) == CONDITION_GREATER){
+                        next = target;
+                    }
+                    break;
+                case 0x38: // JLT
+                    if ((sw & CONDITION_MASK) == CONDITION_LESS){
+                        next = target;
+                    }
+                    break;
+                case 0x48: // JSUB
+                    l = next;
+                    next = target;
+                    break;
+                case 0x00: // LDA
+                    a = word(memory, target);
+                    break;
+                case 0x50: // LDCH
+                    a = (a & 0xFFFF00) | (memory[target] & 0xFF);
+                    break;
+                case 0x08: // LDL
+                    l = word(memory, target);
+                    break;
+                case 0x04: // LDX
+                    x = word(memory, target);
+                    break;
+                case 0x20: // MUL
+                    a = (signed(a) * signed(word(memory, target))) & WORD_MASK;
+                    break;
+                case 0x44: // OR
+                    a = a | word(memory, target);
+                    break;
+                case 0xD8: // RD
+                    a = readDevice(a, devices, memory, target);
+                    break;
+                case 0x4C: // RSUB
+                    next = l;
+                    break;
+                case 0x0C: // STA
+                    storeWord(memory, target, a);
+                    break;
+                case 0x54: // STCH
+                    memory[target] = (byte) a;
+                    break;
+                case 0x14: // STL
+                    storeWord(memory, target, l);
+                    break;
+                case 0xE8: // STSW
+                    storeWord(memory, target, sw);
+                    break;
+                case 0x10: // STX
+                    storeWord(memory, target, x);
+                    break;
+                case 0x1C: // SUB
+                    a = (a - word(memory, target)) & WORD_MASK;
+                    break;
+                case 0xE0: // TD
+                    sw = testDevice(sw, devices, memory, target);
+                    break;
+                case 0x2C: // TIX
+                    x = (x + 1) & WORD_MASK;
+                    sw = compare(sw, x, word(memory, target));
+                    break;
+                case 0xDC: // WD
+                    writeDevice(a, devices, memory, target);
+                    break;
+                default:
+                    stopReason = StopReason.INVALID_OPCODE;
+                    faultAddress = pc;
+                    break;
+            }
+
+            // An instruction that faulted leaves PC on itself; STEP_LIMIT means it ran
+            if (stopReason != StopReason.STEP_LIMIT){
+                if (stopReason == StopReason.HALTED){
+                    steps++;
+                    if (profiler != null){
+                        profiler.transfer(pc, next);
+                    }
+                    pc = next;
+                }
+                break;
+            }
+            steps++;
+            if (profiler != null && next != pc + 3){
+                profiler.transfer(pc, next);
+            }
+            pc = next;
+        }
+        if (profiler != null){
+            profiler.stop(pc);
+        }
+
+        this.a = a;
+        this.x = x;
+        this.l = l;
+        this.pc = pc;
+        this.sw = sw;
+        this.instructionCount += steps;
+        return stopReason;
+    }
+
+    // The number of bytes an opcode reads or writes at its target address
+    static int getAccessLength(int opcode){
+        return ACCESS_LENGTHS[opcode];
+    }
+
+    // The helpers below are shared with the code SICCompiler generates
+
+    static void storeWord(byte[] memory, int address, int value){
+        memory[address] = (byte) (value >>> 16);
+        memory[address + 1] = (byte) (value >>> 8);
+        memory[address + 2] = (byte) value;
+    }
+
+    static int word(byte[] memory, int address){
+        return ((memory[address] & 0xFF) << 16) | ((memory[address + 1] & 0xFF) << 8) | (memory[address + 2] & 0xFF);
+    }
+
+    // Sign extends a 24-bit value
+    static int signed(int value){
+        return (value << 8) >> 8;
+    }
+
+    static int compare(int sw, int first, int second){
+        int comparison = Integer.compare(signed(first), signed(second));
+        int condition = comparison < 0 ? CONDITION_LESS : comparison == 0 ? CONDITION_EQUAL : CONDITION_GREATER;
+        return (sw & ~CONDITION_MASK) | condition;
+    }
+
+    static int testDevice(int sw, SICDevice[] devices, byte[] memory, int address){
+        return (sw & ~CONDITION_MASK) | (devices[memory[address] & 0xFF].isReady() ? CONDITION_LESS : CONDITION_EQUAL);
+    }
+
+    static int readDevice(int a, SICDevice[] devices, byte[] memory, int address){
+        return (a & 0xFFFF00) | (devices[memory[address] & 0xFF].read() & 0xFF);
+    }
+
+    static void writeDevice(int a, SICDevice[] devices, byte[] memory, int address){
+        devices[memory[address] & 0xFF].write(a & 0xFF);
+    }
+
+    public void setBreakpoint(int address, boolean enabled){
+        if (breakpoints[address] != enabled){
+            breakpointCount += enabled ? 1 : -1;
+        }
+        breakpoints[address] = enabled;
+    }
+
+    boolean hasBreakpoints(){
+        return breakpointCount > 0;
+    }
+
+    // Counts every instruction run() runs from now on; null stops profiling
+    public void setProfiler(SICProfiler profiler){
+        if (profiler != null){
+            profiler.attach(memory);
+        }
+        this.profiler = profiler;
+    }
+
+    boolean hasProfiler(){
+        return profiler != null;
+    }
+
+    public void setDevice(int deviceNumber, SICDevice device){
+        devices[deviceNumber] = device == null ? NULL_DEVICE : device;
+    }
+
+    // The word at an address, as an unsigned 24-bit value
+    public int readWord(int address){
+        return word(memory, address);
+    }
+
+    public byte[] getMemory(){
+        return memory;
+    }
+
+    public int getA(){
+        return a;
+    }
+
+    public void setA(int a){
+        this.a = a & WORD_MASK;
+    }
+
+    public int getX(){
+        return x;
+    }
+
+    public void setX(int x){
+        this.x = x & WORD_MASK;
+    }
+
+    public int getL(){
+        return l;
+    }
+
+    public void setL(int l){
+        this.l = l & WORD_MASK;
+    }
+
+    public int getPC(){
+        return pc;
+    }
+
+    public void setPC(int pc){
+        this.pc = pc & WORD_MASK;
+    }
+
+    public int getSW(){
+        return sw;
+    }
+
+    // SIC programs can't write SW, but the condition code may be set directly,
+    // like the other registers, to start a program in a given state
+    public void setSW(int sw){
+        this.sw = sw & WORD_MASK;
+    }
+
+    SICDevice[] getDevices(){
+        return devices;
+    }
+
+    public long getInstructionCount(){
+        return instructionCount;
+    }
+
+    // Counts instructions run outside run(), by a compiled program
+    void addInstructionCount(long count){
+        instructionCount += count;
+    }
+
+    // The address that caused the last fault, or -1
+    public int getFaultAddress(){
+        return faultAddress;
+    }
+}
@@ -0,0 +1,45 @@
+// This class is a reusable CharSequence view of one line in an AssemblySource.
+// It lets the parser inspect a line without turning it into a String.
+public class SourceLine implements CharSequence {
+    private AssemblySource source;
+    private int start;
+    private int end;
+
+    public void set(AssemblySource source, int start, int end){
+        this.source = source;
+        this.start = start;
+        this.end = end;
+    }
+
+    public AssemblySource getSource(){
+        return source;
+    }
+
+    public int getStart(){
+        return start;
+    }
+
+    public int getEnd(){
+        return end;
+    }
+
+    @Override
+    public int length(){
+        return end - start;
+    }
+
+    @Override
+    public char charAt(int index){
+        return source.charAt(start + index);
+    }
+
+    @Override
+    public CharSequence subSequence(int subStart, int subEnd){
+        return source.text(start + subStart, start + subEnd);
+    }
+
+    @Override
+    public String toString(){
+        return source.text(start, end);
+    }
+}
@@ -0,0 +1,140 @@
+
+// This class maps SIC labels to addresses without boxing or Strings.
+// A label is at most 6 characters of A-Z and 0-9, so each character fits in
+// a byte and the whole label packs into one long. The table stores those
+// keys and int addresses in two parallel arrays with open addressing and
+// linear probing, so lookups neither allocate nor follow pointers.
+public class SymbolTable {
+    public static final int NOT_FOUND = -1;
+    private static final long EMPTY = 0;
+    private static final int INITIAL_CAPACITY = 64;
+    private long[] keys;
+    private int[] values;
+    private int size = 0;
+    private int mask;
+
+    public SymbolTable(){
+        this(INITIAL_CAPACITY);
+    }
+
+    // expectedSize is the number of symbols the table should hold without growing
+    public SymbolTable(int expectedSize){
+        int capacity = Integer.highestOneBit(Math.max(INITIAL_CAPACITY, expectedSize * 2) - 1) << 1;
+        keys = new long[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+    }
+
+    // This function packs the label between start and end into a long key.
+    // The label must already be valid (1-6 ASCII characters).
+    public static long pack(CharSequence label, int start, int end){
+        long key = 0;
+        for (int index = start; index < end; index++){
+            key = (key << 8) | label.charAt(index);
+        }
+        return key;
+    }
+
+    public static long pack(CharSequence label){
+        return pack(label, 0, label.length());
+    }
+
+    public static String unpack(long key){
+        StringBuilder label = new StringBuilder(6);
+        for (; key != 0; key >>>= 8){
+            label.append((char) (key & 0xFF));
+        }
+        return label.reverse().toString();
+    }
+
+    // This function adds a symbol and returns true,
+    // or returns false if the symbol is already defined.
+    public boolean put(long key, int address){
+        int slot = slot(key);
+        while (keys[slot] != EMPTY){
+            if (keys[slot] == key){
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        keys[slot] = key;
+        values[slot] = address;
+        if (++size * 2 > keys.length){
+            grow();
+        }
+        return true;
+    }
+
+    // This function returns the address of the symbol, or NOT_FOUND
+    public int get(long key){
+        int slot = slot(key);
+        long candidate;
+        while ((candidate = keys[slot]) != EMPTY){
+            if (candidate == key){
+                return values[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return NOT_FOUND;
+    }
+
+    public int get(CharSequence label){
+        return get(pack(label));
+    }
+
+    public boolean contains(long key){
+        return get(key) != NOT_FOUND;
+    }
+
+    public int size(){
+        return size;
+    }
+
+    // The table can be walked by slot: slots with a key of 0 are empty.
+    public int capacity(){
+        return keys.length;
+    }
+
+    public long keyAt(int slot){
+        return keys[slot];
+    }
+
+    public int valueAt(int slot){
+        return values[slot];
+    }
+
+    private int slot(long key){
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+    }
+
+    private void grow(){
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new long[oldKeys.length * 2];
+        values = new int[oldKeys.length * 2];
+        mask = keys.length - 1;
+
+        for (int index = 0; index < oldKeys.length; index++){
+            if (oldKeys[index] != EMPTY){
+                int slot = slot(oldKeys[index]);
+                while (keys[slot] != EMPTY){
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[index];
+                values[slot] = oldValues[index];
+            }
+        }
+    }
+
+    @Override
+    public String toString(){
+        StringBuilder builder = new StringBuilder();
+        for (int slot = 0; slot < keys.length; slot++){
+            if (keys[slot] != EMPTY){
+                builder.append(String.format("%-6s %04X%n", unpack(keys[slot]), values[slot]));
+            }
+        }
+        return builder.toString();
+    }
+}
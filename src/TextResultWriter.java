@@ -0,0 +1,43 @@
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+
+// This class writes the human readable listing SICParserUI prints,
+// with the same text as its System.out.println calls:
+//    Line Number: 1
+//    Unparsed Line of Code: COPY    START   1000
+//    Is Comment: false
+//    Label: COPY
+//    Opcode: START
+//    Operand: 1000
+//    (blank line)
+public class TextResultWriter extends ParseResultWriter {
+    private static final String LINE_SEPARATOR = System.lineSeparator();
+    private static final String NULL_TEXT = "null";
+
+    public TextResultWriter(WritableByteChannel channel){
+        super(channel);
+    }
+
+    @Override
+    public void write(ParsedLineOfCode lineOfCode) throws IOException {
+        putAscii("Line Number: ");
+        putDecimal(lineOfCode.getLineNumber());
+        putAscii(LINE_SEPARATOR);
+        putAscii("Unparsed Line of Code: ");
+        putText(unparsedLine(lineOfCode));
+        putAscii(LINE_SEPARATOR);
+        putAscii("Is Comment: ");
+        putAscii(lineOfCode.getIsComment() ? "true" : "false");
+        putAscii(LINE_SEPARATOR);
+        putField("Label: ", lineOfCode.getLabel());
+        putField("Opcode: ", lineOfCode.getOpcode());
+        putField("Operand: ", lineOfCode.getOperand());
+        putAscii(LINE_SEPARATOR);
+    }
+
+    private void putField(String name, String value) throws IOException {
+        putAscii(name);
+        putText(value == null ? NULL_TEXT : value);
+        putAscii(LINE_SEPARATOR);
+    }
+}
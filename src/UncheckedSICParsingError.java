@@ -0,0 +1,12 @@
+// Wraps a SICParsingError where a checked exception can't be thrown,
+// such as from an Iterator or a Stream.
+public class UncheckedSICParsingError extends RuntimeException {
+    public UncheckedSICParsingError(SICParsingError cause){
+        super(cause.getMessage(), cause);
+    }
+
+    @Override
+    public SICParsingError getCause(){
+        return (SICParsingError) super.getCause();
+    }
+}